@@ -94,6 +94,35 @@ public class AVL_Tree<E extends Comparable<? super E>>
 	} // add
 	// ========== ========== ========== ==========
 	/**
+	* Add the element unless an equal element is in the tree,
+	* in one walk down that either finds the equal element or
+	* the empty place of the new one. Unlike <tt>add</tt> it
+	* never adds a duplicate.
+	* @param elem the element to be included
+	* @return the equal element in the tree, or <tt>null</tt> if
+	*         <tt>elem</tt> was added.
+	*/
+	public E addIfAbsent( E elem ) {
+		if ( root == null ) {
+			root = new AVL_Entry( elem, null );
+			size++;
+			return null;
+		}
+		Entry t = root, parent;
+		int   comp;
+		do {
+			parent = t;
+			comp   = elem.compareTo( t.element );
+			if ( comp == 0 )
+				return t.element;
+			t = comp < 0 ? t.left : t.right;
+		} while ( t != null );
+		linkAVL( elem, parent, comp < 0 );
+		size++;
+		return null;
+	} // addIfAbsent
+	// ========== ========== ========== ==========
+	/**
 	* Remove the first occurance of an element with the same key
 	* as the argument element. 
 	* If no element is removed false is returned,
@@ -111,6 +140,8 @@ public class AVL_Tree<E extends Comparable<? super E>>
 		else if ( root.element.compareTo(elem) == 0 && 
 		(root.left == null || root.right == null ) ){
 			root = root.left == null ? root.right : root.left;
+			if ( root != null )
+				root.parent = null;
 			size--;
 			return true;
 		}
@@ -122,107 +153,137 @@ public class AVL_Tree<E extends Comparable<? super E>>
 	} // remove 
 	// ========== ========== ========== ==========
 
+	//  add puts an equal element to the right
+	protected boolean isDistinct() {
+		return false;
+	}  //  isDistinct
+	// ========== ========== ========== ==========
+
 	//  In order to make the iterator in 
 	//  BinarySearchTree to work properly !!
+	//  The search starts at t, so that it is t that is
+	//  removed and not another entry with an equal element.
 	protected void removeThis( Entry t ) {
-		remove( t.element, root );
+		remove( t.element, t );
 	}  //  removeThis 
 	// ========== ========== ========== ==========
-	private boolean addInAVL( E newElem, Entry t ) {
-		if ( newElem.compareTo( t.element ) < 0 ) {
-			if ( t.left == null ) { 
-				t.left = new AVL_Entry( newElem, t );
-				checkHeight(t);
-			}
-			else {
-				boolean left = addInAVL( newElem, t.left );
+	// Walk down to the empty place of newElem, an equal element goes
+	// to the right, and link it there.
+	private void addInAVL( E newElem, Entry t ) {
+		Entry   parent;
+		boolean left;
+		do {
+			parent = t;
+			left   = newElem.compareTo( t.element ) < 0;
+			t      = left ? t.left : t.right;
+		} while ( t != null );
+		linkAVL( newElem, parent, left );
+	}  //   addInAVL
+
+	// Link a new entry for newElem as the left or right child of
+	// parent, and then walk back up by the parent references.
+	// A rotation gives the subtree its height from before the add,
+	// so the walk stops after it, or at a height that is unchanged.
+	// x is the child of t on the path and below the child of x.
+	private void linkAVL( E newElem, Entry parent, boolean left ) {
+		Entry t, x = new AVL_Entry( newElem, parent ), below = null;
+		if ( left )
+			parent.left  = x;
+		else
+			parent.right = x;
+		for ( t = parent; ; below = x, x = t, t = t.parent ) {
+			int oldHeight = height( t );
+			if ( x == t.left ) {
 				if ( height(t.left) - height(t.right) > 1 ) {
-					if ( left )
+					if ( below == x.left )
 						rotateRight( t );
-					else 
+					else
 						doubleRotateRight( t );
+					return;
 				}
-				else
-					checkHeight(t); 
 			}
-			return true;
-		}
-		else {
-			if ( t.right == null ) { 
-				t.right = new AVL_Entry( newElem, t );
-				checkHeight(t);
-			}
-			else {
-				boolean left = addInAVL( newElem, t.right );
-				if ( height(t.right) - height(t.left) > 1 ) {
-					if ( left )
-						doubleRotateLeft( t );
-					else 
-						rotateLeft( t );
-				}
+			else if ( height(t.right) - height(t.left) > 1 ) {
+				if ( below == x.left )
+					doubleRotateLeft( t );
 				else
-					checkHeight(t); 
+					rotateLeft( t );
+				return;
 			}
+			checkHeight( t );
+			if ( height( t ) == oldHeight || t == root )
+				return;
 		}
-		return false;
-	}  //   addInAVL
+	}  //   linkAVL
 	// ========== ========== ========== ==========
 
-	private void remove(  E elem, Entry x ) {
-		if ( elem.compareTo( x.element ) == 0 )
-		if ( x.left == null || x.right == null ) {
-			Entry newX =  x.left == null ? x.right : x.left;
-			if ( newX != null )
-				newX.parent = x.parent;
-			if ( x.parent.left == x )
-				x.parent.left = newX;
+	// Find elem below x, an entry with two children gets the element
+	// of the rightmost entry in its left subtree, which is removed
+	// instead. That entry is taken as it is, not searched for by its
+	// element, which might find another equal element. Then back up
+	// by the parent references, restoring the balance, until a height
+	// is unchanged. The rotations keep the entry on top of the
+	// subtree, so the side the walk came from is the side of the child.
+	private void remove( E elem, Entry x ) {
+		while ( x != null ) {
+			int comp = elem.compareTo( x.element );
+			if ( comp == 0 ) {
+				if ( x.left != null && x.right != null ) {
+					Entry t = x.left;
+					while( t.right != null )
+						t = t.right;
+					x.element = t.element;
+					x = t;
+				}
+				break;
+			}
 			else
-				x.parent.right = newX;
-			size--;
-			return;
+				x = comp < 0 ? x.left : x.right;
 		}
-		else {
-			Entry t = x.left; //x.element = findRefToMostRight( x.left ).element;
-			while( t.right != null )//
-				t = t.right;       //
-			x.element = t.element; //
-			remove( x.element, x.left );
-			if ( height( x.right ) - height( x.left ) > 1 )
-				if ( height( x.right.right ) < 
-					height( x.right.left ) )
-						doubleRotateLeft( x );
-			else
-				rotateLeft( x );
-			else 
-				checkHeight( x );
+		if ( x == null )
+			return;
+
+		Entry newX = x.left == null ? x.right : x.left,
+			  t    = x.parent;
+		boolean left = t != null && t.left == x;
+		if ( newX != null )
+			newX.parent = t;
+		if ( x == root ) {
+			root = newX;
+			t    = null;
 		}
-		else 
-		if ( elem.compareTo( x.element ) < 0 ) {
-			if ( x.left != null ) {
-				remove( elem, x.left );
-				if ( height( x.right ) - height( x.left ) > 1 )
-					if ( height( x.right.right ) < 
-						height( x.right.left ) )
-							doubleRotateLeft( x );
+		else if ( left )
+			t.left  = newX;
+		else
+			t.right = newX;
+		size--;
+
+		for ( ; t != null; t = t.parent ) {
+			int oldHeight = height( t );
+			if ( left ) {
+				if ( height( t.right ) - height( t.left ) > 1 )
+					if ( height( t.right.right ) <
+						height( t.right.left ) )
+							doubleRotateLeft( t );
+					else
+						rotateLeft( t );
 				else
-					rotateLeft( x );
-				else 
-					checkHeight( x );
+					checkHeight( t );
 			}
+			else {
+				if ( height( t.left ) - height( t.right ) > 1 )
+					if ( height( t.left.left ) <
+						height( t.left.right ) )
+							doubleRotateRight( t );
+					else
+						rotateRight( t );
+				else
+					checkHeight( t );
+			}
+			if ( height( t ) == oldHeight || t == root )
+				return;
+			left = t.parent.left == t;
 		}
-		else 
-		if ( x.right != null ) {
-			remove( elem, x.right );
-			if ( height( x.left ) - height( x.right ) > 1 )
-				if ( height( x.left.left ) < 
-					height( x.left.right ) )
-						doubleRotateRight(x);
-			else
-				rotateRight(x);
-			else
-				checkHeight( x );
-		}
-	}  // remove private version              
+	}  // remove private version
 	// ========== ========== ========== ==========
 
      /* Rotera 1 steg i hogervarv, dvs 
@@ -233,6 +294,9 @@ public class AVL_Tree<E extends Comparable<? super E>>
            A   B                  B   C
      */
 	 private void rotateRight( Entry x ) {
+		 TreeEvents.Rotation event = new TreeEvents.Rotation();
+		 event.begin();
+		 rotations++;
 		 Entry   y = x.left;
 		 E    temp = x.element;
 		 x.element = y.element;
@@ -247,6 +311,7 @@ public class AVL_Tree<E extends Comparable<? super E>>
 		 x.right   = y;
 		 checkHeight( y );
 		 checkHeight( x );
+		 commit( event, "right", x );
 	 } //   rotateRight
 	 // ========== ========== ========== ==========
 	 
@@ -258,6 +323,9 @@ public class AVL_Tree<E extends Comparable<? super E>>
                B   C          A   B   
      */
 	 private void rotateLeft( Entry x ) {
+		 TreeEvents.Rotation event = new TreeEvents.Rotation();
+		 event.begin();
+		 rotations++;
 		 Entry  y  = x.right;
 		 E temp    = x.element;
 		 x.element = y.element;
@@ -272,6 +340,7 @@ public class AVL_Tree<E extends Comparable<? super E>>
 		 x.left    = y;
 		 checkHeight( y );
 		 checkHeight( x );
+		 commit( event, "left", x );
 	 } //   rotateLeft
 	 // ========== ========== ========== ==========
 
@@ -285,6 +354,9 @@ public class AVL_Tree<E extends Comparable<? super E>>
              B   C  
      */
    private void doubleRotateRight( Entry x ) {
+        TreeEvents.Rotation event = new TreeEvents.Rotation();
+        event.begin();
+        rotations += 2;
         Entry   y = x.left,
 	        z = x.left.right;
         E       e = x.element;
@@ -302,6 +374,7 @@ public class AVL_Tree<E extends Comparable<? super E>>
         checkHeight( z );
         checkHeight( y );
         checkHeight( x );
+        commit( event, "double right", x );
     }  //  doubleRotateRight
 	// ========== ========== ========== ==========
 	
@@ -315,6 +388,9 @@ public class AVL_Tree<E extends Comparable<? super E>>
              B   C  
      */
     private void doubleRotateLeft( Entry x ) {
+        TreeEvents.Rotation event = new TreeEvents.Rotation();
+        event.begin();
+        rotations += 2;
         Entry  y  = x.right,
 	z  = x.right.left;
         E      e  = x.element;
@@ -332,7 +408,23 @@ public class AVL_Tree<E extends Comparable<? super E>>
         checkHeight( z );
         checkHeight( y );
         checkHeight( x );
+        commit( event, "double left", x );
     } //  doubleRotateLeft
 	// ========== ========== ========== ==========
+
+	// Fill in and commit the JFR event of a rotation at x, if it
+	// is recorded. Only then is the depth of x counted.
+	private void commit( TreeEvents.Rotation event, String kind, Entry x ) {
+		if ( event.shouldCommit() ) {
+			int depth = 0;
+			for ( Entry p = x.parent; p != null; p = p.parent )
+				depth++;
+			event.tree  = getClass().getSimpleName();
+			event.kind  = kind;
+			event.depth = depth;
+			event.commit();
+		}
+	}  //  commit
+	// ========== ========== ========== ==========
 }  //  class AVL_Tree
 
@@ -0,0 +1,357 @@
+import java.util.*;
+
+/**
+ *  An AVL tree ordered by the method compareTo for the elements,
+ *  without any entry objects. An entry is an index into parallel
+ *  arrays, its element is in <tt>elements</tt>, its children are the
+ *  indices in <tt>left</tt> and <tt>right</tt> and the height of its
+ *  subtree is in <tt>height</tt>. Index 0 is the empty tree, with
+ *  height 0. So the whole tree is four arrays for the garbage
+ *  collector, however many elements it has, and an entry takes
+ *  4+4+1 bytes and a reference.
+ *
+ *  The indices of removed entries are kept in a free list, linked
+ *  through <tt>left</tt>, and are used again before the arrays grow.
+ *  Two elements for which compareTo gives 0 are not allowed.
+ */
+public class ArrayAVLwithGet<E extends Comparable<? super E>>
+						extends AbstractCollection<E>
+						implements CollectionWithGet<E> {
+
+	private static final int NIL = 0;
+
+	private Object[] elements;
+	private int[]    left, right;
+	private byte[]   height;
+	private int      root = NIL;
+	private int      used = 1;     // the indices below are in use or free
+	private int      free = NIL;   // the first free index
+	private int      size;
+	private int      modCount;
+	private boolean  changed;      // set by insert and delete
+	private int      found = NIL;  // the equal entry insert found
+
+	// ========== ========== ========== ==========
+	/**
+	*  The constructor creates the empty tree
+	*/
+	public ArrayAVLwithGet() {
+		this( 16 );
+	}  // constructor ArrayAVLwithGet
+
+	/**
+	*  The constructor creates the empty tree.
+	*  @param capacity the number of elements there is room for
+	*                  before the arrays grow.
+	*/
+	public ArrayAVLwithGet( int capacity ) {
+		if ( capacity < 0 )
+			throw new IllegalArgumentException( "capacity < 0: " + capacity );
+		allocate( capacity + 1 );
+	}  // constructor ArrayAVLwithGet
+	// ========== ========== ========== ==========
+
+	private void allocate( int capacity ) {
+		elements = new Object[capacity];
+		left     = new int[capacity];
+		right    = new int[capacity];
+		height   = new byte[capacity];
+	}  // allocate
+
+	public int size() {
+		return size;
+	}  // size
+
+	public void clear() {
+		allocate( 17 );
+		root = free = NIL;
+		used = 1;
+		size = 0;
+		modCount++;
+	}  // clear
+
+	@SuppressWarnings("unchecked")
+	private E element( int x ) {
+		return (E) elements[x];
+	}  // element
+
+	private int newEntry( E e ) {
+		int x = free;
+		if ( x != NIL )
+			free = left[x];
+		else {
+			if ( used == elements.length ) {
+				int capacity = used + (used >> 1) + 1;
+				elements = Arrays.copyOf( elements, capacity );
+				left     = Arrays.copyOf( left,     capacity );
+				right    = Arrays.copyOf( right,    capacity );
+				height   = Arrays.copyOf( height,   capacity );
+			}
+			x = used++;
+		}
+		elements[x] = e;
+		left[x] = right[x] = NIL;
+		height[x] = 1;
+		return x;
+	}  // newEntry
+
+	private void freeEntry( int x ) {
+		elements[x] = null;
+		right[x]    = NIL;
+		left[x]     = free;
+		free        = x;
+	}  // freeEntry
+	// ========== ========== ========== ==========
+	/**
+	*  Find the first occurence of an element
+	*  in the collection that is equal to the argument
+	*  <tt>e</tt> with respect to its natural order.
+	*  I.e. <tt>e.compateTo(element)</tt> is 0.
+	*
+	*  @param e The dummy element to compare to.
+	*  @return  An element  <tt>e'</tt> in the collection
+	*           satisfying <tt>e.compareTo(e') == 0</tt>.
+	*           If no element is found, <tt>null</tt> is returned
+	*/
+	public E get( E e ) {
+		int t = root;
+		while ( t != NIL ) {
+			int comp = e.compareTo( element( t ) );
+			if ( comp < 0 )
+				t = left[t];
+			else if ( comp > 0 )
+				t = right[t];
+			else
+				return element( t );
+		}
+		return null;
+	}  // get
+
+	public boolean contains( E e ) {
+		return get( e ) != null;
+	}  // contains
+
+	@SuppressWarnings("unchecked")
+	public boolean contains( Object o ) {
+		return contains( (E) o );
+	}  // contains
+	// ========== ========== ========== ==========
+
+	private void checkHeight( int x ) {
+		height[x] = (byte) (1 + Math.max( height[left[x]], height[right[x]] ));
+	}  // checkHeight
+
+	private int rotateLeft( int x ) {
+		int y = right[x];
+		right[x] = left[y];
+		left[y]  = x;
+		checkHeight( x );
+		checkHeight( y );
+		return y;
+	}  // rotateLeft
+
+	private int rotateRight( int x ) {
+		int y = left[x];
+		left[x]  = right[y];
+		right[y] = x;
+		checkHeight( x );
+		checkHeight( y );
+		return y;
+	}  // rotateRight
+
+	// Restore the balance of x, whose subtrees differ at most 2
+	// in height, and return the new top of the subtree.
+	private int balance( int x ) {
+		int diff = height[right[x]] - height[left[x]];
+		if ( diff > 1 ) {
+			if ( height[left[right[x]]] > height[right[right[x]]] )
+				right[x] = rotateRight( right[x] );
+			return rotateLeft( x );
+		}
+		else if ( diff < -1 ) {
+			if ( height[right[left[x]]] > height[left[left[x]]] )
+				left[x] = rotateLeft( left[x] );
+			return rotateRight( x );
+		}
+		checkHeight( x );
+		return x;
+	}  // balance
+	// ========== ========== ========== ==========
+	/**
+	* Add the element to its proper empty place, unless an
+	* equal element is in the tree. After the element is
+	* inserted the height balance is restored.
+	* @param elem the element to be included
+	* @return true if the element was added.
+	*/
+	public boolean add( E elem ) {
+		return addIfAbsent( elem ) == null;
+	} // add
+
+	/**
+	* Add the element as <tt>add</tt> does, in the same walk
+	* down that would find an equal element.
+	* @param elem the element to be included
+	* @return the equal element in the tree, or <tt>null</tt> if
+	*         <tt>elem</tt> was added.
+	*/
+	public E addIfAbsent( E elem ) {
+		if ( elem == null )
+			throw new NullPointerException();
+		changed = false;
+		found   = NIL;
+		root = insert( root, elem );
+		return found == NIL ? null : element( found );
+	} // addIfAbsent
+
+	// The arrays may be replaced by newEntry, so the result
+	// of insert is stored after the call.
+	private int insert( int x, E e ) {
+		if ( x == NIL ) {
+			changed = true;
+			size++;
+			modCount++;
+			return newEntry( e );
+		}
+		int comp = e.compareTo( element( x ) );
+		if ( comp < 0 ) {
+			int l = insert( left[x], e );
+			left[x] = l;
+		}
+		else if ( comp > 0 ) {
+			int r = insert( right[x], e );
+			right[x] = r;
+		}
+		else {
+			found = x;
+			return x;
+		}
+		return changed ? balance( x ) : x;
+	}  // insert
+	// ========== ========== ========== ==========
+	/**
+	* Remove the element equal to the argument, if any.
+	* An entry with two children is replaced by the leftmost
+	* entry in its right subtree. After the element is removed
+	* the height balance is restored.
+	*
+	* @param elem any element with the searched key
+	* @return true if an element has disapeared from the tree,
+	*         false otherwise
+	*/
+	public boolean remove( E elem ) {
+		changed = false;
+		root = delete( root, elem );
+		return changed;
+	} // remove
+
+	@SuppressWarnings("unchecked")
+	public boolean remove( Object o ) {
+		return remove( (E) o );
+	}  // remove
+
+	private int delete( int x, E e ) {
+		if ( x == NIL )
+			return NIL;
+		int comp = e.compareTo( element( x ) );
+		if ( comp < 0 )
+			left[x] = delete( left[x], e );
+		else if ( comp > 0 )
+			right[x] = delete( right[x], e );
+		else {
+			changed = true;
+			size--;
+			modCount++;
+			int y;
+			if ( left[x] == NIL )
+				y = right[x];
+			else if ( right[x] == NIL )
+				y = left[x];
+			else {
+				y = right[x];
+				while ( left[y] != NIL )
+					y = left[y];
+				right[y] = deleteMin( right[x] );
+				left[y]  = left[x];
+				y = balance( y );
+			}
+			freeEntry( x );
+			return y;
+		}
+		return changed ? balance( x ) : x;
+	}  // delete
+
+	// Unlink the leftmost entry below x
+	private int deleteMin( int x ) {
+		if ( left[x] == NIL )
+			return right[x];
+		left[x] = deleteMin( left[x] );
+		return balance( x );
+	}  // deleteMin
+	// ========== ========== ========== ==========
+	/**
+	* Create an iterator for the elements in order.
+	* @return the created iterator.
+	*/
+	public Iterator<E> iterator() {
+		return new InorderIterator();
+	}  //  iterator
+
+	// The stack is an int[] as high as the tree
+	private class InorderIterator implements Iterator<E> {
+		private int[] stack = new int[Math.max( 1, height[root] )];
+		private int   top   = 0;
+		private E     lastNext = null;
+		private int   expectedModCount = modCount;
+
+		private InorderIterator() {
+			pushLeft( root );
+		} // constructor InorderIterator
+
+		private void pushLeft( int x ) {
+			for ( ; x != NIL; x = left[x] )
+				push( x );
+		} // pushLeft
+
+		private void push( int x ) {
+			if ( top == stack.length )
+				stack = Arrays.copyOf( stack, top + 8 );
+			stack[top++] = x;
+		} // push
+
+		public boolean hasNext() {
+			return top > 0;
+		} // hasNext
+
+		public E next() {
+			if ( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			if ( top == 0 )
+				throw new NoSuchElementException();
+			int x = stack[--top];
+			pushLeft( right[x] );
+			return lastNext = element( x );
+		} // next
+
+		// The rotations of the remove may move the entries on the
+		// stack, so the way down to the next element is found again.
+		public void remove() {
+			if ( lastNext == null )
+				throw new IllegalStateException();
+			if ( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			ArrayAVLwithGet.this.remove( lastNext );
+			expectedModCount = modCount;
+			top = 0;
+			for ( int x = root; x != NIL; )
+				if ( lastNext.compareTo( element( x ) ) < 0 ) {
+					push( x );
+					x = left[x];
+				}
+				else
+					x = right[x];
+			lastNext = null;
+		} // remove
+	}  //  class InorderIterator
+	// ========== ========== ========== ==========
+}  //  class ArrayAVLwithGet
@@ -32,5 +32,36 @@ public class BSTwithGet<E extends Comparable<? super E>>
 		Entry t = find(e,root);
 		return t == null ? null : t.element;
 	}  // get
+
+	/**
+	* Add the element unless an equal element is in the tree,
+	* in one walk down that either finds the equal element or
+	* the empty place of the new one.
+	* @param e the element to be included
+	* @return the equal element in the tree, or <tt>null</tt> if
+	*         <tt>e</tt> was added.
+	*/
+	public E addIfAbsent(E e) {
+		if ( root == null ) {
+			root = new Entry( e, null );
+			size++;
+			return null;
+		}
+		Entry t = root, parent;
+		int   comp;
+		do {
+			parent = t;
+			comp   = e.compareTo( t.element );
+			if ( comp == 0 )
+				return t.element;
+			t = comp < 0 ? t.left : t.right;
+		} while ( t != null );
+		if ( comp < 0 )
+			parent.left  = new Entry( e, parent );
+		else
+			parent.right = new Entry( e, parent );
+		size++;
+		return null;
+	}  // addIfAbsent
 }   // class BSTwithGet
 
@@ -0,0 +1,486 @@
+import java.util.*;
+
+/**
+ *  A B+tree ordered by the method compareTo for the elements.
+ *  Each node keeps its keys in a sorted array that is searched
+ *  by binary search, so a search visits only about
+ *  log(n) / log(fanout) nodes instead of log(n) entries as in
+ *  <tt>BinarySearchTree</tt>. All elements are in the leaves, the
+ *  inner nodes only keep copies of some of them to guide the
+ *  search. The leaves are linked in order, which the iterator and
+ *  the range scans of <tt>iterator(from, to)</tt> use.
+ *  Two elements for which compareTo gives 0 are not allowed.
+ */
+public class BTreeWithGet<E extends Comparable<? super E>>
+						extends AbstractCollection<E>
+						implements CollectionWithGet<E> {
+
+	/**
+	* The fanout used by the constructor without arguments.
+	*/
+	public static final int DEFAULT_FANOUT = 64;
+
+	private final int fanout;    // at most fanout-1 keys in a node
+	private final int minKeys;   // at least minKeys in a node but the root
+	private Node  root;
+	private Leaf  first;         // the leftmost leaf
+	private int   size;
+	private int   modCount;
+
+	// set by insert when a node is split
+	private Object splitKey;
+	// set by insert to the equal key it found instead of inserting
+	private Object found;
+
+	// ========== ========== ========== ==========
+	// The keys of a leaf are the elements and keys[0..n-1] is sorted.
+	// In an inner node keys[i] separates children[i], whose keys are
+	// all smaller, from children[i+1], whose keys are all greater or
+	// equal. Both have room for one key too many, before the split.
+	private static abstract class Node {
+		Object[] keys;
+		int      n;     // the number of keys
+
+		Node( int fanout ) {
+			keys = new Object[fanout];
+		} // constructor Node
+	} // class Node
+
+	private static final class Leaf extends Node {
+		Leaf prev, next;
+
+		Leaf( int fanout ) {
+			super( fanout );
+		} // constructor Leaf
+	} // class Leaf
+
+	private static final class Inner extends Node {
+		Node[] children;
+
+		Inner( int fanout ) {
+			super( fanout );
+			children = new Node[fanout + 1];
+		} // constructor Inner
+	} // class Inner
+	// ========== ========== ========== ==========
+
+	/**
+	*  The constructor creates the empty tree
+	*  with the default fanout.
+	*/
+	public BTreeWithGet() {
+		this( DEFAULT_FANOUT );
+	}  // constructor BTreeWithGet
+
+	/**
+	*  The constructor creates the empty tree.
+	*  @param fanout the largest number of children of an inner
+	*                node, a leaf holds at most <tt>fanout-1</tt>
+	*                elements.
+	*  @throws IllegalArgumentException if <tt>fanout</tt> is less than 3.
+	*/
+	public BTreeWithGet( int fanout ) {
+		if ( fanout < 3 )
+			throw new IllegalArgumentException( "fanout < 3: " + fanout );
+		this.fanout  = fanout;
+		this.minKeys = (fanout - 1) / 2;
+		clear();
+	}  // constructor BTreeWithGet
+	// ========== ========== ========== ==========
+
+	public int size() {
+		return size;
+	}  // size
+
+	public int getFanout() {
+		return fanout;
+	}  // getFanout
+
+	/**
+	* The number of levels, 1 for a tree with only a leaf.
+	*/
+	public int height() {
+		int h = 1;
+		for ( Node x = root; x instanceof Inner; x = ((Inner) x).children[0] )
+			h++;
+		return h;
+	}  // height
+
+	public void clear() {
+		first = new Leaf( fanout );
+		root  = first;
+		size  = 0;
+		modCount++;
+	}  // clear
+	// ========== ========== ========== ==========
+
+	@SuppressWarnings("unchecked")
+	private E key( Node x, int i ) {
+		return (E) x.keys[i];
+	}  // key
+
+	// The child of x to search for e, i.e. the number of keys <= e
+	private int childIndex( Inner x, E e ) {
+		int lo = 0, hi = x.n;
+		while ( lo < hi ) {
+			int mid = (lo + hi) >>> 1;
+			if ( e.compareTo( key( x, mid ) ) >= 0 )
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}  // childIndex
+
+	// The index of e in the leaf if it is there, otherwise
+	// -(the index where it should be) - 1 as in Arrays.binarySearch
+	private int leafIndex( Leaf x, E e ) {
+		int lo = 0, hi = x.n;
+		while ( lo < hi ) {
+			int mid = (lo + hi) >>> 1;
+			int comp = e.compareTo( key( x, mid ) );
+			if ( comp > 0 )
+				lo = mid + 1;
+			else if ( comp < 0 )
+				hi = mid;
+			else
+				return mid;
+		}
+		return -lo - 1;
+	}  // leafIndex
+
+	private Leaf findLeaf( E e ) {
+		Node x = root;
+		while ( x instanceof Inner ) {
+			Inner in = (Inner) x;
+			x = in.children[childIndex( in, e )];
+		}
+		return (Leaf) x;
+	}  // findLeaf
+	// ========== ========== ========== ==========
+	/**
+	*  Find the first occurence of an element
+	*  in the collection that is equal to the argument
+	*  <tt>e</tt> with respect to its natural order.
+	*  I.e. <tt>e.compateTo(element)</tt> is 0.
+	*
+	*  @param e The dummy element to compare to.
+	*  @return  An element  <tt>e'</tt> in the collection
+	*           satisfying <tt>e.compareTo(e') == 0</tt>.
+	*           If no element is found, <tt>null</tt> is returned
+	*/
+	public E get( E e ) {
+		Leaf x = findLeaf( e );
+		int i = leafIndex( x, e );
+		return i < 0 ? null : key( x, i );
+	}  // get
+
+	public boolean contains( E e ) {
+		return get( e ) != null;
+	}  // contains
+
+	@SuppressWarnings("unchecked")
+	public boolean contains( Object o ) {
+		return contains( (E) o );
+	}  // contains
+	// ========== ========== ========== ==========
+	/**
+	* Add the element to its leaf, unless an equal element
+	* is in the tree. A node that gets too many keys is split
+	* in two and the split may go all the way up to the root.
+	* @param elem the element to be included
+	* @return true if the element was added.
+	*/
+	public boolean add( E elem ) {
+		if ( elem == null )
+			throw new NullPointerException();
+		return addIfAbsent( elem ) == null;
+	} // add
+
+	/**
+	* Add the element as <tt>add</tt> does, in the same walk down
+	* that would find an equal element.
+	* @param elem the element to be included
+	* @return the equal element in the tree, or <tt>null</tt> if
+	*         <tt>elem</tt> was added.
+	*/
+	@SuppressWarnings("unchecked")
+	public E addIfAbsent( E elem ) {
+		if ( elem == null )
+			throw new NullPointerException();
+		Node sibling = insert( root, elem );
+		if ( sibling != null ) {
+			Inner r = new Inner( fanout );
+			r.keys[0]     = splitKey;
+			r.children[0] = root;
+			r.children[1] = sibling;
+			r.n = 1;
+			root = r;
+		}
+		splitKey = null;
+		E old = (E) found;
+		found = null;
+		return old;
+	} // addIfAbsent
+
+	// Insert e below x. Returns the new right sibling of x
+	// if x is split, with its smallest key in splitKey.
+	private Node insert( Node x, E e ) {
+		if ( x instanceof Leaf ) {
+			Leaf leaf = (Leaf) x;
+			int i = leafIndex( leaf, e );
+			if ( i >= 0 ) {
+				found = leaf.keys[i];
+				return null;
+			}
+			i = -i - 1;
+			System.arraycopy( leaf.keys, i, leaf.keys, i + 1, leaf.n - i );
+			leaf.keys[i] = e;
+			leaf.n++;
+			size++;
+			modCount++;
+			return leaf.n < fanout ? null : splitLeaf( leaf );
+		}
+		Inner in = (Inner) x;
+		int i = childIndex( in, e );
+		Node sibling = insert( in.children[i], e );
+		if ( sibling == null )
+			return null;
+		System.arraycopy( in.keys, i, in.keys, i + 1, in.n - i );
+		System.arraycopy( in.children, i + 1, in.children, i + 2, in.n - i );
+		in.keys[i] = splitKey;
+		in.children[i + 1] = sibling;
+		in.n++;
+		return in.n < fanout ? null : splitInner( in );
+	}  // insert
+
+	private Leaf splitLeaf( Leaf left ) {
+		Leaf right = new Leaf( fanout );
+		int half = left.n / 2;
+		right.n = left.n - half;
+		System.arraycopy( left.keys, half, right.keys, 0, right.n );
+		Arrays.fill( left.keys, half, left.n, null );
+		left.n = half;
+		right.next = left.next;
+		right.prev = left;
+		if ( left.next != null )
+			left.next.prev = right;
+		left.next = right;
+		splitKey = right.keys[0];
+		return right;
+	}  // splitLeaf
+
+	// The middle key moves up to the parent
+	private Inner splitInner( Inner left ) {
+		Inner right = new Inner( fanout );
+		int mid = left.n / 2;
+		right.n = left.n - mid - 1;
+		System.arraycopy( left.keys, mid + 1, right.keys, 0, right.n );
+		System.arraycopy( left.children, mid + 1, right.children, 0, right.n + 1 );
+		splitKey = left.keys[mid];
+		Arrays.fill( left.keys, mid, left.n, null );
+		Arrays.fill( left.children, mid + 1, left.n + 1, null );
+		left.n = mid;
+		return right;
+	}  // splitInner
+	// ========== ========== ========== ==========
+	/**
+	* Remove the element equal to the argument, if any.
+	* A node that gets too few keys borrows one from a
+	* sibling or is merged with it.
+	*
+	* @param elem any element with the searched key
+	* @return true if an element has disapeared from the tree,
+	*         false otherwise
+	*/
+	public boolean remove( E elem ) {
+		if ( !delete( root, elem ) )
+			return false;
+		if ( root instanceof Inner && root.n == 0 )
+			root = ((Inner) root).children[0];
+		return true;
+	} // remove
+
+	@SuppressWarnings("unchecked")
+	public boolean remove( Object o ) {
+		return remove( (E) o );
+	}  // remove
+
+	private boolean delete( Node x, E e ) {
+		if ( x instanceof Leaf ) {
+			int i = leafIndex( (Leaf) x, e );
+			if ( i < 0 )
+				return false;
+			System.arraycopy( x.keys, i + 1, x.keys, i, x.n - i - 1 );
+			x.keys[--x.n] = null;
+			size--;
+			modCount++;
+			return true;
+		}
+		Inner in = (Inner) x;
+		int i = childIndex( in, e );
+		if ( !delete( in.children[i], e ) )
+			return false;
+		if ( in.children[i].n < minKeys )
+			fix( in, i );
+		return true;
+	}  // delete
+
+	// children[i] of p has one key too few
+	private void fix( Inner p, int i ) {
+		Node c = p.children[i];
+		Node left  = i > 0   ? p.children[i - 1] : null;
+		Node right = i < p.n ? p.children[i + 1] : null;
+		if ( left != null && left.n > minKeys ) {
+			System.arraycopy( c.keys, 0, c.keys, 1, c.n );
+			if ( c instanceof Leaf ) {
+				c.keys[0] = left.keys[left.n - 1];
+				p.keys[i - 1] = c.keys[0];
+			}
+			else {
+				Inner ci = (Inner) c, li = (Inner) left;
+				System.arraycopy( ci.children, 0, ci.children, 1, c.n + 1 );
+				c.keys[0] = p.keys[i - 1];
+				ci.children[0] = li.children[left.n];
+				li.children[left.n] = null;
+				p.keys[i - 1] = left.keys[left.n - 1];
+			}
+			left.keys[--left.n] = null;
+			c.n++;
+		}
+		else if ( right != null && right.n > minKeys ) {
+			if ( c instanceof Leaf ) {
+				c.keys[c.n] = right.keys[0];
+				System.arraycopy( right.keys, 1, right.keys, 0, right.n - 1 );
+				p.keys[i] = right.keys[0];
+			}
+			else {
+				Inner ci = (Inner) c, ri = (Inner) right;
+				c.keys[c.n] = p.keys[i];
+				ci.children[c.n + 1] = ri.children[0];
+				p.keys[i] = right.keys[0];
+				System.arraycopy( right.keys, 1, right.keys, 0, right.n - 1 );
+				System.arraycopy( ri.children, 1, ri.children, 0, right.n );
+				ri.children[right.n] = null;
+			}
+			right.keys[--right.n] = null;
+			c.n++;
+		}
+		else if ( left != null )
+			merge( p, i - 1 );
+		else
+			merge( p, i );
+	}  // fix
+
+	// Move children[i+1] of p into children[i]
+	private void merge( Inner p, int i ) {
+		Node left = p.children[i], right = p.children[i + 1];
+		if ( left instanceof Leaf ) {
+			Leaf ll = (Leaf) left, rl = (Leaf) right;
+			System.arraycopy( right.keys, 0, left.keys, left.n, right.n );
+			left.n += right.n;
+			ll.next = rl.next;
+			if ( rl.next != null )
+				rl.next.prev = ll;
+		}
+		else {
+			Inner li = (Inner) left, ri = (Inner) right;
+			left.keys[left.n] = p.keys[i];
+			System.arraycopy( right.keys, 0, left.keys, left.n + 1, right.n );
+			System.arraycopy( ri.children, 0, li.children, left.n + 1, right.n + 1 );
+			left.n += right.n + 1;
+		}
+		System.arraycopy( p.keys, i + 1, p.keys, i, p.n - i - 1 );
+		System.arraycopy( p.children, i + 2, p.children, i + 1, p.n - i - 1 );
+		p.n--;
+		p.keys[p.n] = null;
+		p.children[p.n + 1] = null;
+	}  // merge
+	// ========== ========== ========== ==========
+	/**
+	* Create an iterator for the elements in order,
+	* that follows the links between the leaves.
+	* @return the created iterator.
+	*/
+	public Iterator<E> iterator() {
+		return new LeafIterator( first, 0, null );
+	}  //  iterator
+
+	/**
+	* Create an iterator for the elements <tt>x</tt> in order
+	* with <tt>from &lt;= x &lt; to</tt>. Only the search for
+	* <tt>from</tt> goes through the inner nodes, the rest
+	* of the scan follows the links between the leaves.
+	* Both bounds are only used as in <tt>from.compareTo(x)</tt>,
+	* so they may be probes.
+	* @param from the smallest element, or null to start at the first.
+	* @param to   the element to stop before, or null to go to the end.
+	* @return the created iterator.
+	*/
+	public Iterator<E> iterator( E from, E to ) {
+		if ( from == null )
+			return new LeafIterator( first, 0, to );
+		Leaf x = findLeaf( from );
+		int i = leafIndex( x, from );
+		return new LeafIterator( x, i < 0 ? -i - 1 : i, to );
+	}  //  iterator
+
+	private class LeafIterator implements Iterator<E> {
+		private Leaf    leaf;
+		private int     index;     // of the next element in leaf
+		private final E to;
+		private E       lastNext = null;
+		private int     expectedModCount = modCount;
+
+		private LeafIterator( Leaf leaf, int index, E to ) {
+			this.leaf  = leaf;
+			this.index = index;
+			this.to    = to;
+			skipEmpty();
+		} // constructor LeafIterator
+
+		// move to the next leaf when leaf is used up
+		private void skipEmpty() {
+			while ( leaf != null && index >= leaf.n ) {
+				leaf  = leaf.next;
+				index = 0;
+			}
+			if ( leaf != null && to != null
+				 && to.compareTo( key( leaf, index ) ) <= 0 )
+				leaf = null;
+		} // skipEmpty
+
+		public boolean hasNext() {
+			return leaf != null;
+		} // hasNext
+
+		public E next() {
+			if ( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			if ( leaf == null )
+				throw new NoSuchElementException();
+			lastNext = key( leaf, index++ );
+			skipEmpty();
+			return lastNext;
+		} // next
+
+		// The leaves may be merged or borrow from each other,
+		// so the next element is searched for again.
+		public void remove() {
+			if ( lastNext == null )
+				throw new IllegalStateException();
+			if ( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			BTreeWithGet.this.remove( lastNext );
+			expectedModCount = modCount;
+			if ( leaf != null ) {
+				leaf  = findLeaf( lastNext );
+				int i = leafIndex( leaf, lastNext );
+				index = -i - 1;
+				skipEmpty();
+			}
+			lastNext = null;
+		} // remove
+	}  //  class LeafIterator
+	// ========== ========== ========== ==========
+}  //  class BTreeWithGet
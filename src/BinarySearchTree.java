@@ -70,6 +70,7 @@ one liner: the first two number is the nodes position in the tree (depth, width)
 
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  *  A simple binary searchtree ordered by the
@@ -90,6 +91,9 @@ public class BinarySearchTree<E extends Comparable<? super E>>
 
 	protected Entry root;
 	protected int   size;
+	// the number of rotations made by a balancing subclass,
+	// read by CollectionStats
+	protected long  rotations;
 	// ========== ========== ========== ==========
 	protected  class Entry  {
 
@@ -186,18 +190,29 @@ public class BinarySearchTree<E extends Comparable<? super E>>
 	} // add
 	// ========== ========== ========== ==========
 	
+	// A loop instead of recursion, which counts the depth, so
+	// that a long search can be recorded as a JFR event.
 	protected Entry find( E elem, Entry t ) {
-		if ( t == null )
-			return null;
-		else {
+		TreeEvents.LongFind event = new TreeEvents.LongFind();
+		event.begin();
+		int depth = 0;
+		while ( t != null ) {
+			depth++;
 			int jfr = elem.compareTo( t.element );
 			if ( jfr  < 0 )
-				return find( elem, t.left );
+				t = t.left;
 			else if ( jfr > 0 )
-				return find( elem, t.right );
+				t = t.right;
 			else 
-				return t;
+				break;
+		}
+		if ( event.shouldCommit() && TreeEvents.isLong( depth, size ) ) {
+			event.tree  = getClass().getSimpleName();
+			event.depth = depth;
+			event.size  = size;
+			event.commit();
 		}
+		return t;
 	}  //   find
 	// ========== ========== ========== ==========
 
@@ -212,6 +227,20 @@ public class BinarySearchTree<E extends Comparable<? super E>>
 	}  // contains 
 	// ========== ========== ========== ==========
 	/**
+	* Check if the element is in the the tree. Without this
+	* <tt>Collection.contains</tt> would be the linear search
+	* in <tt>AbstractCollection</tt>.
+	* @param o The element to check
+	* @returns true if the element is contained in the tree,
+	*          otherwise false is returned.  
+	* @throws ClassCastException if <tt>o</tt> is not an <tt>E</tt>
+	*/ 
+	@SuppressWarnings("unchecked")
+	public boolean contains( Object o ) {
+		return contains( (E) o );
+	}  // contains 
+	// ========== ========== ========== ==========
+	/**
 	* Removes all of the elements from this tree
 	*/ 
 	public void clear() {
@@ -238,11 +267,13 @@ public class BinarySearchTree<E extends Comparable<? super E>>
 		// old: findRefToMostRight, removeLeaf, removeThis
 		// new: removeThis, liftRightSubtree, swapWithRightMostInLeftTree
 	// ========== ========== ========== ==========
+	// Also used by the iterator, so the size is kept here
 	protected void removeThis( Entry t ) {
 		if ( t.left == null )
 			liftRightSubtree(t);
 		else
 			swapWithRightMostInLeftTree(t);
+		size--;
 	}  // removeThis
 	// ========== ========== ========== ==========
 
@@ -320,58 +351,242 @@ public class BinarySearchTree<E extends Comparable<? super E>>
 			return false;
 		else {
 			removeThis( remElem );
-			--size;
 			return true;
 		}
 	}  // remove
 	// ========== ========== ========== ==========
 	/**
-	* Create an iterator for elements in the tree in preorder.
+	* Remove the first occurance of an element for which 
+	* compareTo with the argument yields 0, by the search
+	* of the tree. Without this <tt>Collection.remove</tt> would
+	* be the linear search in <tt>AbstractCollection</tt>.
+	* @param o element of Comarable
+	* @return true if the tree has changed, otherwise false.
+	* @throws ClassCastException if <tt>o</tt> is not an <tt>E</tt>
+	*/
+	@SuppressWarnings("unchecked")
+	public boolean remove( Object o ) {
+		return remove( (E) o );
+	}  // remove
+	// ========== ========== ========== ==========
+	/**
+	* Create an iterator for elements in the tree in inorder.
 	* @return the created iterator.
 	*/
 	public Iterator<E> iterator() {
-		boolean preorder = true;
-		boolean inorder = false;
-		if (preorder) {
-			return new BSTPre_Iterator();
-		} else if (inorder) {
-			; // return new BSTIn_Iterator();
+		return new BSTIn_Iterator( false );
+	}  //  iterator
+
+	/**
+	* Create an iterator for elements in the tree in
+	* descending inorder, the greatest first.
+	* @return the created iterator.
+	*/
+	public Iterator<E> descendingIterator() {
+		return new BSTIn_Iterator( true );
+	}  //  descendingIterator
+	// ========== ========== ========== ==========
+	// The next entry in inorder, by the parent references
+	private Entry successor( Entry t ) {
+		if ( t.right != null ) {
+			t = t.right;
+			while ( t.left != null )
+				t = t.left;
+			return t;
+		}
+		Entry p = t.parent;
+		while ( p != null && t == p.right ) {
+			t = p;
+			p = p.parent;
+		}
+		return p;
+	}  //  successor
+
+	// The mirror of successor
+	private Entry predecessor( Entry t ) {
+		if ( t.left != null ) {
+			t = t.left;
+			while ( t.right != null )
+				t = t.right;
+			return t;
+		}
+		Entry p = t.parent;
+		while ( p != null && t == p.left ) {
+			t = p;
+			p = p.parent;
 		}
+		return p;
+	}  //  predecessor
+
+	// The entry that holds e itself, or null. The search finds
+	// an entry with an element equal to e, and since there may be
+	// more equal elements, e is looked for among those next to it.
+	// Unlike find it never splays.
+	private Entry entryOf( E e ) {
+		Entry t = root;
+		int   comp = 1;
+		while ( t != null && (comp = e.compareTo( t.element )) != 0 )
+			t = comp < 0 ? t.left : t.right;
+		for ( Entry p = t; p != null && e.compareTo( p.element ) == 0;
+			  p = predecessor( p ) )
+			if ( p.element == e )
+				return p;
+		for ( Entry p = t == null ? null : successor( t );
+			  p != null && e.compareTo( p.element ) == 0; p = successor( p ) )
+			if ( p.element == e )
+				return p;
 		return null;
-	}  //  iterator
+	}  //  entryOf
 	// ========== ========== ========== ==========
-	// An inner class to create an iterator for 
-	// the collection of elements in preorder.
-	protected class BSTPre_Iterator implements Iterator<E> {
-		private Stacks<Entry> nextOnTop  = new LinkedStack<Entry>();
+	// An inner class to create an iterator for the collection
+	// of elements in inorder, or descending inorder. It walks
+	// by the parent references, so it needs no stack and makes
+	// no objects while iterating.
+	protected class BSTIn_Iterator implements Iterator<E> {
+		private final boolean descending;
+		private Entry         next;
 		private Entry         lastNext   = null;
 
-		protected BSTPre_Iterator() {
-			for ( Entry p = root; p != null; p = p.left )
-				nextOnTop.push( p ); 
-		} // constructor BST_Iterator 
+		protected BSTIn_Iterator( boolean descending ) {
+			this.descending = descending;
+			next = root;
+			if ( next != null ) {
+				if ( descending ) {
+					while ( next.right != null )
+						next = next.right;
+				}
+				else {
+					while ( next.left != null )
+						next = next.left;
+				}
+			}
+		} // constructor BSTIn_Iterator
 
 		public boolean hasNext() {
-			return ! nextOnTop.isEmpty();
+			return next != null;
 		} // hasNext
 
 		public E next() {
-			lastNext =  nextOnTop.pop();
-			// throws NoSuchElementException if empty
-			for ( Entry p = lastNext.right; p != null; p = p.left )
-				nextOnTop.push( p );
+			if ( next == null )
+				throw new NoSuchElementException();
+			lastNext = next;
+			next = descending ? predecessor( next ) : successor( next );
 			return lastNext.element;
 		} // next
 
+		// A remove may move elements between the entries, by the
+		// rotations of a balanced tree or by taking the element of
+		// the rightmost entry in the left subtree, which may be
+		// next. So next is looked up again by its element.
 		public void remove() {
-			if ( lastNext != null ) {
-				removeThis( lastNext );
-				lastNext = null;
-			} 
-			else
-				throw new IllegalStateException();    
+			if ( lastNext == null )
+				throw new IllegalStateException();
+			E following = next == null ? null : next.element;
+			removeThis( lastNext );
+			lastNext = null;
+			if ( following != null )
+				next = entryOf( following );
 		} // remove
-	}  //  classBST_Iterator
+	}  //  class BSTIn_Iterator
+	// ========== ========== ========== ==========
+	/**
+	* Create a spliterator for the elements in inorder. It splits
+	* at the roots of subtrees, as the one of <tt>TreeMap</tt>, so
+	* a balanced tree is split in about equal parts.
+	* @return the created spliterator.
+	*/
+	public Spliterator<E> spliterator() {
+		return new BSTSpliterator( null, null, 0, -1 );
+	}  //  spliterator
+
+	/**
+	* Tells if no two elements in the tree are equal, as
+	* <tt>add</tt> does not add an element equal to one in it.
+	* @return true, unless overridden by a tree that adds them.
+	*/
+	protected boolean isDistinct() {
+		return true;
+	}  //  isDistinct
+
+	// The entries from current up to fence, or to the end if fence
+	// is null. The spliterator of the whole tree is bound to it at
+	// its first use, and has an exact size. Each split halves the
+	// estimate. side tells where the part is: 0 for the whole tree,
+	// -1 for a left part, which is split at fence.left, and 1 for a
+	// right part, which is split at current.right.
+	protected class BSTSpliterator implements Spliterator<E> {
+		private Entry current, fence;
+		private int   side, est;      // est is -1 before the first use
+
+		protected BSTSpliterator( Entry origin, Entry fence, int side, int est ) {
+			this.current = origin;
+			this.fence   = fence;
+			this.side    = side;
+			this.est     = est;
+		} // constructor BSTSpliterator
+
+		private int getEstimate() {
+			if ( est < 0 ) {
+				est     = size;
+				current = root;
+				if ( current != null )
+					while ( current.left != null )
+						current = current.left;
+			}
+			return est;
+		} // getEstimate
+
+		public Spliterator<E> trySplit() {
+			getEstimate();
+			Entry e = current, f = fence,
+				  s = e == null || e == f ? null
+					: side == 0           ? root
+					: side >  0           ? e.right
+					: f != null           ? f.left
+					: null;
+			if ( s != null && s != e && s != f
+				 && e.element.compareTo( s.element ) < 0 ) {
+				side = 1;
+				return new BSTSpliterator( e, current = s, -1, est >>>= 1 );
+			}
+			return null;
+		} // trySplit
+
+		public boolean tryAdvance( Consumer<? super E> action ) {
+			Objects.requireNonNull( action );
+			getEstimate();
+			Entry e = current;
+			if ( e == null || e == fence )
+				return false;
+			current = successor( e );
+			action.accept( e.element );
+			return true;
+		} // tryAdvance
+
+		public void forEachRemaining( Consumer<? super E> action ) {
+			Objects.requireNonNull( action );
+			getEstimate();
+			Entry e = current, f = fence;
+			current = f;
+			for ( ; e != null && e != f; e = successor( e ) )
+				action.accept( e.element );
+		} // forEachRemaining
+
+		public long estimateSize() {
+			return getEstimate();
+		} // estimateSize
+
+		public int characteristics() {
+			return (side == 0 ? Spliterator.SIZED : 0)
+				| (isDistinct() ? Spliterator.DISTINCT : 0)
+				| Spliterator.SORTED | Spliterator.ORDERED;
+		} // characteristics
+
+		// sorted by the natural order of the elements
+		public Comparator<? super E> getComparator() {
+			return null;
+		} // getComparator
+	}  //  class BSTSpliterator
 
 	// ========= ========= ========= ========= ========= =========
 	// ========= ========= ========= ========= ========= =========
@@ -0,0 +1,375 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * A benchmark for the implementations of <tt>CollectionWithGet</tt>.
+ * Every structure is used as the container of a
+ * <tt>TestMapWithCounter</tt> and is run through
+ * synthetic workloads (uniform, zipfian, sorted and reverse
+ * sorted keys) and through <tt>TestFrame.findRefs</tt> on the
+ * text files given on the command line. The keys are even, and
+ * every tenth lookup, on average, is for the odd key just after
+ * one of them, so that <tt>get</tt> also measures misses.
+ *
+ * Each run is repeated a number of warm-up rounds that are thrown
+ * away before the measured rounds, so the JIT has compiled the
+ * code that is measured. For <tt>put</tt>, <tt>get</tt> and
+ * <tt>remove</tt> every single operation is timed, for iteration
+ * and <tt>findRefs</tt> every full pass. The report gives throughput,
+ * average and percentile latencies, allocated bytes and the
+ * number of comparisons per operation.
+ *
+ * With <tt>-f</tt> only the footprint is measured instead, that is
+ * the heap used per entry by each structure, holding the keys of
+ * the uniform workload.
+ *
+ * Usage:
+ * <pre>
+ *   java CollectionBenchmark [-n keys] [-w warmup] [-i rounds] [-f]
+ *                            [-s BST,AVL,Splay,SLC] [file ...]
+ * </pre>
+ */
+public class CollectionBenchmark {
+
+	private static final String[] WORKLOADS =
+		{ "uniform", "zipfian", "sorted", "reverse" };
+
+	// the per cent of the lookups that search for a missing key
+	private static final int MISSES = 10;
+
+	private int      nbrOfKeys = 10000;
+	private int      warmup    = 5;
+	private int      rounds    = 5;
+	private String[] names     = Containers.NAMES;
+	private boolean  footprint = false;
+	private List<File> files   = new ArrayList<File>();
+
+	private final com.sun.management.ThreadMXBean threads;
+
+	// ========== ========== ========== ==========
+	public CollectionBenchmark() {
+		java.lang.management.ThreadMXBean tmx = ManagementFactory.getThreadMXBean();
+		if ( tmx instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) tmx).isThreadAllocatedMemorySupported() ) {
+			threads = (com.sun.management.ThreadMXBean) tmx;
+			threads.setThreadAllocatedMemoryEnabled( true );
+		}
+		else
+			threads = null;
+	} // constructor CollectionBenchmark
+	// ========== ========== ========== ==========
+
+	/**
+	* The measurements of one kind of operation over
+	* all measured rounds.
+	*/
+	private class Result {
+		String structure, workload, operation;
+		long[] nanos;       // one latency per operation or pass
+		int    count;
+		long   elapsed;     // total wall time of the measured rounds
+		long   allocated;   // bytes, -1 if not supported
+		long   comparisons;
+		long   ops;         // operations behind all the passes
+
+		Result( String structure, String workload, String operation, int capacity ) {
+			this.structure = structure;
+			this.workload  = workload;
+			this.operation = operation;
+			this.nanos     = new long[capacity];
+			this.allocated = threads == null ? -1 : 0;
+		} // constructor Result
+
+		void record( long nano ) {
+			nanos[count++] = nano;
+		} // record
+
+		long percentile( double p ) {
+			if ( count == 0 )
+				return 0;
+			int i = (int) Math.ceil( p / 100.0 * count ) - 1;
+			return nanos[ Math.max( 0, Math.min( count - 1, i ) ) ];
+		} // percentile
+
+		void print( PrintStream out ) {
+			Arrays.sort( nanos, 0, count );
+			double perSec = elapsed == 0 ? 0 : ops * 1e9 / elapsed;
+			double avg    = count == 0 ? 0 : (double) elapsed / count;
+			out.printf( Locale.UK,
+				"%-6s %-8s %-9s %14.0f %12.0f %10d %10d %10d %10d %12s %10.1f%n",
+				structure, workload, operation, perSec, avg,
+				percentile(50), percentile(90), percentile(99), percentile(99.9),
+				allocated < 0 ? "n/a" : String.format( Locale.UK, "%.1f", (double) allocated / ops ),
+				(double) comparisons / ops );
+		} // print
+	} // class Result
+	// ========== ========== ========== ==========
+
+	private long allocatedBytes() {
+		return threads == null ? 0 : threads.getThreadAllocatedBytes(
+			Thread.currentThread().getId() );
+	} // allocatedBytes
+	// ========== ========== ========== ==========
+
+	/**
+	* Create the keys in the order they are inserted, and the
+	* order in which they are looked up and removed.
+	* <tt>MISSES</tt> per cent of the lookups miss.
+	*/
+	private Integer[][] keys( String workload, Random rnd ) {
+		int n = nbrOfKeys;
+		Integer[] universe = new Integer[n];
+		for ( int i = 0; i < n; i++ )
+			universe[i] = i * 2;          // room for misses in between
+		Integer[] inserts = universe.clone(),
+		          lookups = new Integer[n];
+		if ( workload.equals("sorted") ) {
+			lookups = universe.clone();
+		}
+		else if ( workload.equals("reverse") ) {
+			for ( int i = 0; i < n; i++ )
+				inserts[i] = universe[n - 1 - i];
+			lookups = inserts.clone();
+		}
+		else {
+			shuffle( inserts, rnd );
+			if ( workload.equals("uniform") ) {
+				for ( int i = 0; i < n; i++ )
+					lookups[i] = universe[ rnd.nextInt(n) ];
+			}
+			else {
+				// zipfian with s = 0.99 over a random ranking of the keys
+				Integer[] ranked = universe.clone();
+				shuffle( ranked, rnd );
+				double[] cdf = new double[n];
+				double sum = 0;
+				for ( int i = 0; i < n; i++ )
+					cdf[i] = sum += 1.0 / Math.pow( i + 1, 0.99 );
+				for ( int i = 0; i < n; i++ ) {
+					int rank = Arrays.binarySearch( cdf, rnd.nextDouble() * sum );
+					lookups[i] = ranked[ Math.min( n - 1, rank < 0 ? -rank - 1 : rank ) ];
+				}
+			}
+		}
+		for ( int i = 0; i < n; i++ )
+			if ( rnd.nextInt( 100 ) < MISSES )
+				lookups[i] = lookups[i] + 1;
+		return new Integer[][] { inserts, lookups };
+	} // keys
+
+	private static void shuffle( Integer[] a, Random rnd ) {
+		for ( int i = a.length - 1; i > 0; i-- ) {
+			int j = rnd.nextInt( i + 1 );
+			Integer t = a[i]; a[i] = a[j]; a[j] = t;
+		}
+	} // shuffle
+	// ========== ========== ========== ==========
+
+	/**
+	* Run <tt>put</tt>, <tt>get</tt>, iteration and <tt>remove</tt>
+	* for one structure and one synthetic workload.
+	*/
+	private void runSynthetic( String name, String workload, PrintStream out ) {
+		int n = nbrOfKeys;
+		Result put  = new Result( name, workload, "put",     n * rounds ),
+		       get  = new Result( name, workload, "get",     n * rounds ),
+		       iter = new Result( name, workload, "iterate", rounds ),
+		       rem  = new Result( name, workload, "remove",  n * rounds );
+		Random rnd = new Random( 4711 );
+		long sink = 0;
+		for ( int round = 0; round < warmup + rounds; round++ ) {
+			boolean measure = round >= warmup;
+			Integer[][] k = keys( workload, rnd );
+			Integer[] inserts = k[0], lookups = k[1];
+			TestMapWithCounter<Integer,Integer> map =
+				new TestMapWithCounter<Integer,Integer>(
+					Containers.<TestMapWithCounter.TestMapEntry<Integer,Integer>>create( name ), true );
+
+			// ---- put
+			map.resetCounter();
+			long bytes = allocatedBytes(), start = System.nanoTime();
+			for ( Integer key : inserts ) {
+				long t = System.nanoTime();
+				map.put( key, key );
+				if ( measure ) put.record( System.nanoTime() - t );
+			}
+			if ( measure )
+				addTotals( put, start, bytes, map, n );
+
+			// ---- get
+			map.resetCounter();
+			bytes = allocatedBytes(); start = System.nanoTime();
+			for ( Integer key : lookups ) {
+				long t = System.nanoTime();
+				Integer v = map.get( key );
+				if ( measure ) get.record( System.nanoTime() - t );
+				if ( v != null ) sink += v;
+			}
+			if ( measure )
+				addTotals( get, start, bytes, map, n );
+
+			// ---- iterate
+			map.resetCounter();
+			bytes = allocatedBytes(); start = System.nanoTime();
+			Iterator<? extends Map.Entry<Integer,Integer>> it = map.iterator();
+			while ( it.hasNext() )
+				sink += it.next().getValue();
+			if ( measure ) {
+				iter.record( System.nanoTime() - start );
+				addTotals( iter, start, bytes, map, n );
+			}
+
+			// ---- remove
+			map.resetCounter();
+			bytes = allocatedBytes(); start = System.nanoTime();
+			for ( Integer key : inserts ) {
+				long t = System.nanoTime();
+				map.remove( key );
+				if ( measure ) rem.record( System.nanoTime() - t );
+			}
+			if ( measure )
+				addTotals( rem, start, bytes, map, n );
+		}
+		put.print( out );
+		get.print( out );
+		iter.print( out );
+		rem.print( out );
+		if ( sink == 42 )                  // keep the results alive
+			out.println();
+	} // runSynthetic
+	// ========== ========== ========== ==========
+
+	/**
+	* Run <tt>TestFrame.findRefs</tt> over the whole text of a file,
+	* one latency per full indexing of the text.
+	*/
+	private void runFindRefs( String name, File file, String text, PrintStream out ) {
+		String label = file.getName();
+		if ( label.length() > 8 )
+			label = label.substring( 0, 8 );
+		Result refs = new Result( name, label, "findRefs", rounds );
+		for ( int round = 0; round < warmup + rounds; round++ ) {
+			TestMapWithCounter<String,List<Integer>> map =
+				new TestMapWithCounter<String,List<Integer>>(
+					Containers.<TestMapWithCounter.TestMapEntry<String,List<Integer>>>create( name ), true );
+			map.resetCounter();
+			long bytes = allocatedBytes(), start = System.nanoTime();
+			TestFrame.findRefs( new Scanner( text ), map );
+			if ( round >= warmup ) {
+				refs.record( System.nanoTime() - start );
+				addTotals( refs, start, bytes, map, 1 );
+			}
+		}
+		refs.print( out );
+	} // runFindRefs
+	// ========== ========== ========== ==========
+
+	/**
+	* Measure the heap a structure uses for its entries, as the
+	* heap in use after a full gc before and after adding the keys.
+	* The keys exist before, so only the structure is counted.
+	*/
+	private void runFootprint( String name, PrintStream out ) {
+		Integer[] inserts = keys( "uniform", new Random( 4711 ) )[0];
+		long before = usedHeap();
+		CollectionWithGet<Integer> c = Containers.<Integer>create( name );
+		for ( Integer key : inserts )
+			c.add( key );
+		long after = usedHeap();
+		out.printf( Locale.UK, "%-6s %-8s %-9s %14d %12.1f%n", name, "uniform",
+			"footprint", after - before, (double) (after - before) / inserts.length );
+		if ( c.isEmpty() )                 // keep c alive until measured
+			out.println();
+	} // runFootprint
+
+	private static long usedHeap() {
+		long used = Long.MAX_VALUE;
+		for ( int i = 0; i < 4; i++ ) {    // gc until nothing more is freed
+			System.gc();
+			long now = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+			if ( now >= used )
+				break;
+			used = now;
+		}
+		return used;
+	} // usedHeap
+	// ========== ========== ========== ==========
+
+	private void addTotals( Result r, long start, long bytes,
+							TestMapWithCounter<?,?> map, int ops ) {
+		r.elapsed     += System.nanoTime() - start;
+		r.comparisons += map.getCounter();
+		r.ops         += ops;
+		if ( r.allocated >= 0 )
+			r.allocated += allocatedBytes() - bytes;
+	} // addTotals
+	// ========== ========== ========== ==========
+
+	/**
+	* Run all workloads for all selected structures and print
+	* the report.
+	*/
+	public void run( PrintStream out ) throws IOException {
+		if ( footprint ) {
+			out.printf( "keys=%d%n", nbrOfKeys );
+			out.printf( "%-6s %-8s %-9s %14s %12s%n",
+				"struct", "workload", "op", "bytes", "bytes/entry" );
+			for ( String name : names )
+				runFootprint( name, out );
+			return;
+		}
+		out.printf( "keys=%d warmup=%d rounds=%d%n", nbrOfKeys, warmup, rounds );
+		out.printf( "%-6s %-8s %-9s %14s %12s %10s %10s %10s %10s %12s %10s%n",
+			"struct", "workload", "op", "ops/s", "avg ns", "p50 ns", "p90 ns",
+			"p99 ns", "p99.9 ns", "bytes/op", "cmp/op" );
+		for ( String name : names )
+			for ( String workload : WORKLOADS )
+				runSynthetic( name, workload, out );
+		for ( File file : files ) {
+			String text = new String( Files.readAllBytes( file.toPath() ),
+										Charset.defaultCharset() );
+			for ( String name : names )
+				runFindRefs( name, file, text, out );
+		}
+	} // run
+	// ========== ========== ========== ==========
+
+	public static void main( String[] args ) throws Exception {
+		final CollectionBenchmark bench = new CollectionBenchmark();
+		for ( int i = 0; i < args.length; i++ ) {
+			if ( args[i].equals("-n") )
+				bench.nbrOfKeys = Integer.parseInt( args[++i] );
+			else if ( args[i].equals("-w") )
+				bench.warmup = Integer.parseInt( args[++i] );
+			else if ( args[i].equals("-i") )
+				bench.rounds = Integer.parseInt( args[++i] );
+			else if ( args[i].equals("-f") )
+				bench.footprint = true;
+			else if ( args[i].equals("-s") )
+				bench.names = args[++i].split(",");
+			else
+				bench.files.add( new File( args[i] ) );
+		}
+		// A BinarySearchTree filled with sorted keys is a list and
+		// both addIn and find recurse over its whole length,
+		// so run with a stack large enough for that.
+		final Exception[] failure = new Exception[1];
+		Thread t = new Thread( null, new Runnable() {
+			public void run() {
+				try {
+					bench.run( System.out );
+				}
+				catch ( Exception e ) {
+					failure[0] = e;
+				}
+			}
+		}, "benchmark", 1L << 30 );
+		t.start();
+		t.join();
+		if ( failure[0] != null )
+			throw failure[0];
+	} // main
+}  // class CollectionBenchmark
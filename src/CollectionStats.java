@@ -0,0 +1,218 @@
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import javax.management.*;
+
+/**
+ *  A JMX MBean for a collection, which shows the shape of it
+ *  and how much work it has done, e.g. to find out that a
+ *  <tt>BSTwithGet</tt> has become a list or that a splay tree
+ *  has started to rotate much more. E.g.
+ *  <pre>
+ *     CollectionStats stats = new CollectionStats( container, map );
+ *     stats.register( "words" );
+ *  </pre>
+ *  registers it in the platform MBean server as
+ *  <tt>CollectionStats:type=AVLwithGet,name="words"</tt>, where
+ *  e.g. jconsole shows it, until <tt>unregister</tt> is called.
+ *
+ *  The height and the depth are known for a
+ *  <tt>BinarySearchTree</tt> and its subclasses, and for an
+ *  <tt>SLCWithGet</tt>, where the depth is the number of steps of
+ *  a search that starts at its middle entry. For a tree both are
+ *  computed by one walk through all of it, which is reused for
+ *  the attributes read within a second. The walk takes no lock,
+ *  so it may meet a change in progress, and if it finds more
+ *  entries than the tree has it stops and gives -1. Rotations
+ *  are counted by the AVL, red black and splay trees and splays
+ *  by <tt>SplayWithGet</tt>.
+ *  The operations and comparisions are those of the
+ *  <tt>TestMapWithCounter</tt> given, if it counts them.
+ */
+public class CollectionStats implements CollectionStatsMBean {
+
+	private final Collection<?>           collection;
+	private final TestMapWithCounter<?,?> map;         // or null
+	private ObjectName name;                          // when registered
+
+	// the counts of the tree at the last reset
+	private long rotationsAtReset, splaysAtReset;
+
+	// the last shape of a tree and when it was computed
+	private long[] shape;
+	private long   shapeNanos;
+	private static final long SHAPE_NANOS = 1000000000L;
+
+	// ========== ========== ========== ==========
+	/**
+	* The constructor of the bean of a collection that is
+	* not used by a <tt>TestMapWithCounter</tt>.
+	* @param collection the collection to show.
+	*/
+	public CollectionStats( Collection<?> collection ) {
+		this( collection, null );
+	}  // constructor CollectionStats
+
+	/**
+	* The constructor of the bean.
+	* @param collection the collection to show.
+	* @param map        the map that uses <tt>collection</tt> as its
+	*                   container, or <tt>null</tt>.
+	*/
+	public CollectionStats( Collection<?> collection,
+							TestMapWithCounter<?,?> map ) {
+		this.collection = Objects.requireNonNull( collection );
+		this.map        = map;
+	}  // constructor CollectionStats
+	// ========== ========== ========== ==========
+
+	/**
+	* Register the bean in the platform MBean server.
+	* @param name the name of the collection in the name of the bean.
+	* @return the name of the bean.
+	* @throws JMException if it could not be registered, e.g.
+	*         because the name is taken.
+	*/
+	public synchronized ObjectName register( String name ) throws JMException {
+		if ( this.name != null )
+			throw new IllegalStateException( "already registered as " + this.name );
+		ObjectName on = new ObjectName( "CollectionStats:type="
+			+ collection.getClass().getSimpleName()
+			+ ",name=" + ObjectName.quote( name ));
+		ManagementFactory.getPlatformMBeanServer().registerMBean( this, on );
+		this.name = on;
+		return on;
+	}  // register
+
+	/**
+	* Remove the bean from the platform MBean server,
+	* if it is registered.
+	* @throws JMException if it could not be removed.
+	*/
+	public synchronized void unregister() throws JMException {
+		if ( name != null ) {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean( name );
+			name = null;
+		}
+	}  // unregister
+	// ========== ========== ========== ==========
+
+	public int getSize() {
+		return collection.size();
+	}  // getSize
+
+	public int getHeight() {
+		long[] shape = shape();
+		return shape == null ? -1 : (int) shape[0];
+	}  // getHeight
+
+	public double getAverageDepth() {
+		long[] shape = shape();
+		if ( shape == null )
+			return -1;
+		return shape[2] == 0 ? 0 : (double) shape[1] / shape[2];
+	}  // getAverageDepth
+
+	public long getRotations() {
+		if ( collection instanceof SLCWithGet )
+			return 0;
+		else if ( !(collection instanceof BinarySearchTree) )
+			return -1;
+		return ((BinarySearchTree<?>) collection).rotations - rotationsAtReset;
+	}  // getRotations
+
+	public long getSplays() {
+		if ( !(collection instanceof SplayWithGet) )
+			return -1;
+		return ((SplayWithGet<?>) collection).splays - splaysAtReset;
+	}  // getSplays
+
+	public long getOperations() {
+		return counting() ? map.getOperations() : -1;
+	}  // getOperations
+
+	public long getComparisons() {
+		return counting() ? map.getCounter() : -1;
+	}  // getComparisons
+
+	public double getComparisonsPerOperation() {
+		if ( !counting() )
+			return Double.NaN;
+		long ops = map.getOperations();
+		return ops == 0 ? Double.NaN : (double) map.getCounter() / ops;
+	}  // getComparisonsPerOperation
+
+	public void reset() {
+		if ( collection instanceof BinarySearchTree )
+			rotationsAtReset = ((BinarySearchTree<?>) collection).rotations;
+		if ( collection instanceof SplayWithGet )
+			splaysAtReset = ((SplayWithGet<?>) collection).splays;
+		if ( map != null )
+			map.resetCounter();
+	}  // reset
+	// ========== ========== ========== ==========
+
+	private boolean counting() {
+		return map != null && map.isCounting();
+	}  // counting
+
+	// The height, the sum of the depths and the number of entries,
+	// or null if they are not known.
+	private synchronized long[] shape() {
+		if ( collection instanceof BinarySearchTree ) {
+			long now = System.nanoTime();
+			if ( shape == null || now - shapeNanos > SHAPE_NANOS ) {
+				shape      = shape( (BinarySearchTree<?>) collection );
+				shapeNanos = now;
+			}
+			return shape;
+		}
+		else if ( collection instanceof SLCWithGet ) {
+			// The middle entry is compared to first, at depth 0. The
+			// i'th entry before it is then at i + 1 from the head, and
+			// the j'th entry after it at j.
+			long n = collection.size(),
+				 m = ((SLCWithGet<?>) collection).middleIndex();
+			if ( m < 0 || n == 0 )
+				return new long[] { 0, 0, 0 };
+			long k = Math.max( 0, n - 1 - m );
+			return new long[] { Math.max( m, k ) + 1,
+								m * (m + 1) / 2 + k * (k + 1) / 2, n };
+		}
+		return null;
+	}  // shape
+
+	// Walk the tree in preorder with a stack of the entries
+	// still to visit and their depths. Each link is read once,
+	// as it may be changed by a rotation meanwhile.
+	private static <E extends Comparable<? super E>>
+			long[] shape( BinarySearchTree<E> tree ) {
+		long limit = tree.size() + 1L;
+		Deque<BinarySearchTree<E>.Entry> stack = new ArrayDeque<BinarySearchTree<E>.Entry>();
+		Deque<Integer> depths = new ArrayDeque<Integer>();
+		long height = 0, depthSum = 0, count = 0;
+		BinarySearchTree<E>.Entry root = tree.root;
+		if ( root != null ) {
+			stack.push( root );
+			depths.push( 0 );
+		}
+		while ( !stack.isEmpty() ) {
+			BinarySearchTree<E>.Entry t = stack.pop();
+			int depth = depths.pop();
+			if ( ++count > limit )
+				return null;                 // changed meanwhile
+			depthSum += depth;
+			height = Math.max( height, depth + 1 );
+			BinarySearchTree<E>.Entry right = t.right, left = t.left;
+			if ( right != null ) {
+				stack.push( right );
+				depths.push( depth + 1 );
+			}
+			if ( left != null ) {
+				stack.push( left );
+				depths.push( depth + 1 );
+			}
+		}
+		return new long[] { height, depthSum, count };
+	}  // shape
+	// ========== ========== ========== ==========
+}  //  class CollectionStats
@@ -0,0 +1,57 @@
+/**
+ *  The attributes and the operation of a collection that
+ *  <tt>CollectionStats</tt> shows through JMX, see there.
+ *  What a collection can not tell is given as -1, or NaN
+ *  for a ratio.
+ */
+public interface CollectionStatsMBean {
+
+	/**
+	* @return the number of elements.
+	*/
+	int getSize();
+
+	/**
+	* @return the number of entries on the longest path from
+	*         the root, for a linked list from where a search
+	*         starts.
+	*/
+	int getHeight();
+
+	/**
+	* @return the mean number of steps from the root down to
+	*         an entry, the root itself at 0.
+	*/
+	double getAverageDepth();
+
+	/**
+	* @return the number of rotations since the last reset.
+	*/
+	long getRotations();
+
+	/**
+	* @return the number of splays since the last reset.
+	*/
+	long getSplays();
+
+	/**
+	* @return the number of operations on the map since the last reset.
+	*/
+	long getOperations();
+
+	/**
+	* @return the number of comparisions since the last reset.
+	*/
+	long getComparisons();
+
+	/**
+	* @return the comparisions divided by the operations.
+	*/
+	double getComparisonsPerOperation();
+
+	/**
+	* Start the counting of rotations, splays, operations
+	* and comparisions over from 0.
+	*/
+	void reset();
+}  //  interface CollectionStatsMBean
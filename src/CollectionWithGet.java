@@ -18,6 +18,9 @@ public interface CollectionWithGet<E extends Comparable<? super E>>
 	*  in the collection that is equal to the argument
 	*  <tt>e</tt> with respect to its natural order.
 	*  I.e. <tt>e.compateTo(element)</tt> is 0.
+	*  The dummy is only used as in <tt>e.compareTo(element)</tt>
+	*  and is not stored, so it may be a probe that only
+	*  knows how to compare itself to the elements.
 	*  
 	*  @param e The dummy element to compare to.
 	*  @return  An element  <tt>e'</tt> in the collection
@@ -25,4 +28,25 @@ public interface CollectionWithGet<E extends Comparable<? super E>>
 	*           If no element is found, <tt>null</tt> is returned
 	*/
 	public E get(E e);
+
+	/**
+	*  Add <tt>e</tt> unless an element equal to it is in the
+	*  collection, and return that element instead. Unlike the
+	*  dummy of <tt>get</tt>, <tt>e</tt> may be stored, so it
+	*  must be a real element. This default searches twice, by
+	*  <tt>get</tt> and <tt>add</tt>, an implementation that can
+	*  find the place of <tt>e</tt> and an equal element in the
+	*  same search overrides it.
+	*
+	*  @param e The element to add.
+	*  @return  The element <tt>e'</tt> in the collection satisfying
+	*           <tt>e.compareTo(e') == 0</tt>, or <tt>null</tt> if
+	*           there was none and <tt>e</tt> was added.
+	*/
+	default E addIfAbsent(E e) {
+		E old = get(e);
+		if (old == null)
+			add(e);
+		return old;
+	}
 }
@@ -0,0 +1,386 @@
+import java.util.*;
+
+/**
+ *  An AVL tree ordered by the method compareTo for the elements,
+ *  with as small entries as possible for large collections.
+ *  An entry of <tt>AVLwithGet</tt> is an inner class of both
+ *  <tt>BinarySearchTree</tt> and <tt>AVL_Tree</tt>, so besides the
+ *  element, left, right and parent it has two hidden references to
+ *  the tree and an <tt>int</tt> height. Here an entry is a static
+ *  class with only the element, left, right and a <tt>byte</tt>
+ *  balance factor, the height of the right subtree minus the height
+ *  of the left, which is -1, 0 or 1. That is 32 bytes instead of 40
+ *  on a 64 bit JVM with compressed references.
+ *
+ *  Without parent references add and remove are recursive, and the
+ *  changes of height are given back up by the fields <tt>grown</tt>
+ *  and <tt>shrunk</tt>. The rotations relink the entries, the
+ *  elements stay where they are.
+ *  Two elements for which compareTo gives 0 are not allowed.
+ */
+public class CompactAVLwithGet<E extends Comparable<? super E>>
+						extends AbstractCollection<E>
+						implements CollectionWithGet<E> {
+
+	private Node<E> root;
+	private int     size;
+	private int     modCount;
+
+	// set by add and remove below an entry, for the entry
+	private boolean grown, shrunk;
+	private Node<E> detached;   // the entry removed by removeMax
+	private E       found;      // the equal element insert found
+
+	// ========== ========== ========== ==========
+	private static final class Node<E> {
+		E       element;
+		Node<E> left, right;
+		byte    balance;   // height(right) - height(left)
+
+		Node( E element ) {
+			this.element = element;
+		} // constructor Node
+	} // class Node
+	// ========== ========== ========== ==========
+
+	/**
+	*  The constructor creates the empty tree
+	*/
+	public CompactAVLwithGet() {
+		super();
+	}  // constructor CompactAVLwithGet
+	// ========== ========== ========== ==========
+
+	public int size() {
+		return size;
+	}  // size
+
+	public void clear() {
+		root = null;
+		size = 0;
+		modCount++;
+	}  // clear
+	// ========== ========== ========== ==========
+	/**
+	*  Find the first occurence of an element
+	*  in the collection that is equal to the argument
+	*  <tt>e</tt> with respect to its natural order.
+	*  I.e. <tt>e.compateTo(element)</tt> is 0.
+	*
+	*  @param e The dummy element to compare to.
+	*  @return  An element  <tt>e'</tt> in the collection
+	*           satisfying <tt>e.compareTo(e') == 0</tt>.
+	*           If no element is found, <tt>null</tt> is returned
+	*/
+	public E get( E e ) {
+		Node<E> t = root;
+		while ( t != null ) {
+			int comp = e.compareTo( t.element );
+			if ( comp < 0 )
+				t = t.left;
+			else if ( comp > 0 )
+				t = t.right;
+			else
+				return t.element;
+		}
+		return null;
+	}  // get
+
+	public boolean contains( E e ) {
+		return get( e ) != null;
+	}  // contains
+
+	@SuppressWarnings("unchecked")
+	public boolean contains( Object o ) {
+		return contains( (E) o );
+	}  // contains
+	// ========== ========== ========== ==========
+
+	private static <E> Node<E> rotateLeft( Node<E> p ) {
+		Node<E> r = p.right;
+		p.right = r.left;
+		r.left  = p;
+		return r;
+	}  // rotateLeft
+
+	private static <E> Node<E> rotateRight( Node<E> p ) {
+		Node<E> l = p.left;
+		p.left  = l.right;
+		l.right = p;
+		return l;
+	}  // rotateRight
+
+	/* p is two higher to the right, rotate once if the right child
+	   leans right or not at all, otherwise twice:
+	        p                  rl
+	       / \               /    \
+	      A   r     -->     p      r
+	         / \           / \    / \
+	       rl   D         A   B  C   D
+	       / \
+	      B   C
+	   Returns the new top. Its balance is 0 if the subtree
+	   has got lower, which it has unless r was balanced.
+	*/
+	private static <E> Node<E> fixRightHeavy( Node<E> p ) {
+		Node<E> r = p.right;
+		if ( r.balance >= 0 ) {
+			if ( r.balance == 0 ) {     // only after a remove
+				p.balance = 1;
+				r.balance = -1;
+			}
+			else
+				p.balance = r.balance = 0;
+			return rotateLeft( p );
+		}
+		Node<E> rl = r.left;
+		p.balance  = (byte) (rl.balance ==  1 ? -1 : 0);
+		r.balance  = (byte) (rl.balance == -1 ?  1 : 0);
+		rl.balance = 0;
+		p.right = rotateRight( r );
+		return rotateLeft( p );
+	}  // fixRightHeavy
+
+	// the mirror of fixRightHeavy
+	private static <E> Node<E> fixLeftHeavy( Node<E> p ) {
+		Node<E> l = p.left;
+		if ( l.balance <= 0 ) {
+			if ( l.balance == 0 ) {
+				p.balance = -1;
+				l.balance = 1;
+			}
+			else
+				p.balance = l.balance = 0;
+			return rotateRight( p );
+		}
+		Node<E> lr = l.right;
+		p.balance  = (byte) (lr.balance == -1 ?  1 : 0);
+		l.balance  = (byte) (lr.balance ==  1 ? -1 : 0);
+		lr.balance = 0;
+		p.left = rotateLeft( l );
+		return rotateRight( p );
+	}  // fixLeftHeavy
+	// ========== ========== ========== ==========
+	/**
+	* Add the element to its proper empty place, unless an
+	* equal element is in the tree. After the element is
+	* inserted the height balance is restored.
+	* @param elem the element to be included
+	* @return true if the element was added.
+	*/
+	public boolean add( E elem ) {
+		return addIfAbsent( elem ) == null;
+	} // add
+
+	/**
+	* Add the element as <tt>add</tt> does, in the same walk
+	* down that would find an equal element.
+	* @param elem the element to be included
+	* @return the equal element in the tree, or <tt>null</tt> if
+	*         <tt>elem</tt> was added.
+	*/
+	public E addIfAbsent( E elem ) {
+		if ( elem == null )
+			throw new NullPointerException();
+		root = insert( root, elem );
+		E old = found;
+		found = null;
+		return old;
+	} // addIfAbsent
+
+	// Insert e below p and return the new top of the subtree,
+	// grown tells if it has got higher.
+	private Node<E> insert( Node<E> p, E e ) {
+		if ( p == null ) {
+			grown = true;
+			size++;
+			modCount++;
+			return new Node<E>( e );
+		}
+		int comp = e.compareTo( p.element );
+		if ( comp < 0 ) {
+			p.left = insert( p.left, e );
+			if ( grown )
+				if ( p.balance == 1 ) {
+					p.balance = 0;
+					grown = false;
+				}
+				else if ( p.balance == 0 )
+					p.balance = -1;
+				else {
+					p = fixLeftHeavy( p );
+					grown = false;
+				}
+		}
+		else if ( comp > 0 ) {
+			p.right = insert( p.right, e );
+			if ( grown )
+				if ( p.balance == -1 ) {
+					p.balance = 0;
+					grown = false;
+				}
+				else if ( p.balance == 0 )
+					p.balance = 1;
+				else {
+					p = fixRightHeavy( p );
+					grown = false;
+				}
+		}
+		else {
+			grown = false;
+			found = p.element;
+		}
+		return p;
+	}  // insert
+	// ========== ========== ========== ==========
+	/**
+	* Remove the element equal to the argument, if any.
+	* An entry with two children is replaced by the rightmost
+	* entry in its left subtree. After the element is removed
+	* the height balance is restored.
+	*
+	* @param elem any element with the searched key
+	* @return true if an element has disapeared from the tree,
+	*         false otherwise
+	*/
+	public boolean remove( E elem ) {
+		int before = size;
+		root = delete( root, elem );
+		return size != before;
+	} // remove
+
+	@SuppressWarnings("unchecked")
+	public boolean remove( Object o ) {
+		return remove( (E) o );
+	}  // remove
+
+	// Remove e below p and return the new top of the subtree,
+	// shrunk tells if it has got lower.
+	private Node<E> delete( Node<E> p, E e ) {
+		if ( p == null ) {
+			shrunk = false;
+			return null;
+		}
+		int comp = e.compareTo( p.element );
+		if ( comp < 0 ) {
+			p.left = delete( p.left, e );
+			if ( shrunk )
+				p = leftShrunk( p );
+		}
+		else if ( comp > 0 ) {
+			p.right = delete( p.right, e );
+			if ( shrunk )
+				p = rightShrunk( p );
+		}
+		else {
+			size--;
+			modCount++;
+			if ( p.left == null || p.right == null ) {
+				shrunk = true;
+				return p.left == null ? p.right : p.left;
+			}
+			Node<E> left = removeMax( p.left ), q = detached;
+			detached  = null;
+			q.left    = left;
+			q.right   = p.right;
+			q.balance = p.balance;
+			p = shrunk ? leftShrunk( q ) : q;
+		}
+		return p;
+	}  // delete
+
+	// Unlink the rightmost entry below p into detached
+	private Node<E> removeMax( Node<E> p ) {
+		if ( p.right == null ) {
+			detached = p;
+			shrunk = true;
+			return p.left;
+		}
+		p.right = removeMax( p.right );
+		return shrunk ? rightShrunk( p ) : p;
+	}  // removeMax
+
+	// The left subtree of p has got one lower
+	private Node<E> leftShrunk( Node<E> p ) {
+		if ( p.balance == -1 )
+			p.balance = 0;                 // shrunk stays true
+		else if ( p.balance == 0 ) {
+			p.balance = 1;
+			shrunk = false;
+		}
+		else {
+			p = fixRightHeavy( p );
+			shrunk = p.balance == 0;
+		}
+		return p;
+	}  // leftShrunk
+
+	private Node<E> rightShrunk( Node<E> p ) {
+		if ( p.balance == 1 )
+			p.balance = 0;
+		else if ( p.balance == 0 ) {
+			p.balance = -1;
+			shrunk = false;
+		}
+		else {
+			p = fixLeftHeavy( p );
+			shrunk = p.balance == 0;
+		}
+		return p;
+	}  // rightShrunk
+	// ========== ========== ========== ==========
+	/**
+	* Create an iterator for the elements in order.
+	* @return the created iterator.
+	*/
+	public Iterator<E> iterator() {
+		return new InorderIterator();
+	}  //  iterator
+
+	private class InorderIterator implements Iterator<E> {
+		private Stacks<Node<E>> nextOnTop = new LinkedStack<Node<E>>();
+		private E   lastNext = null;
+		private int expectedModCount = modCount;
+
+		private InorderIterator() {
+			for ( Node<E> p = root; p != null; p = p.left )
+				nextOnTop.push( p );
+		} // constructor InorderIterator
+
+		public boolean hasNext() {
+			return !nextOnTop.isEmpty();
+		} // hasNext
+
+		public E next() {
+			if ( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			if ( nextOnTop.isEmpty() )
+				throw new NoSuchElementException();
+			Node<E> x = nextOnTop.pop();
+			for ( Node<E> p = x.right; p != null; p = p.left )
+				nextOnTop.push( p );
+			return lastNext = x.element;
+		} // next
+
+		// The rotations of the remove may move the entries on the
+		// stack, so the way down to the next element is found again.
+		public void remove() {
+			if ( lastNext == null )
+				throw new IllegalStateException();
+			if ( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			CompactAVLwithGet.this.remove( lastNext );
+			expectedModCount = modCount;
+			nextOnTop = new LinkedStack<Node<E>>();
+			for ( Node<E> p = root; p != null; )
+				if ( lastNext.compareTo( p.element ) < 0 ) {
+					nextOnTop.push( p );
+					p = p.left;
+				}
+				else
+					p = p.right;
+			lastNext = null;
+		} // remove
+	}  //  class InorderIterator
+	// ========== ========== ========== ==========
+}  //  class CompactAVLwithGet
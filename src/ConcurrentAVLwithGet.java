@@ -0,0 +1,237 @@
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * An <tt>AVLwithGet</tt> that may be shared by many threads, made
+ * for many reads and few changes. The changes, with their
+ * rotations, are made by one thread at a time under the write
+ * lock of a <tt>StampedLock</tt>. A search takes no lock: it
+ * reads the tree optimistically and then validates that no change
+ * has started meanwhile, so readers never block each other and
+ * only wait for a writer when they have to read again.
+ *
+ * A search that meets a change in progress may see a half rotated
+ * tree, where it can take a wrong way or even go round in a loop.
+ * Its answer is then thrown away by the validation, and the number
+ * of steps is bounded by <tt>MAX_STEPS</tt>, far more than the
+ * height of any AVL tree. After a failed validation the search is
+ * made again under the read lock.
+ *
+ * The iterator goes through a copy of the elements taken under
+ * the read lock, and its <tt>remove</tt> removes from the tree.
+ */
+public class ConcurrentAVLwithGet<E extends Comparable<? super E>>
+						extends AVLwithGet<E> {
+
+	// an AVL tree of height h has at least fib(h+2)-1 entries,
+	// so 2^31 elements give a height of at most 45
+	private static final int MAX_STEPS = 64;
+
+	private final StampedLock lock = new StampedLock();
+
+	// ========== ========== ========== ==========
+	/**
+	*  The constructor creates the empty tree
+	*/
+	public ConcurrentAVLwithGet() {
+		super();
+	}  // constructor ConcurrentAVLwithGet
+	// ========== ========== ========== ==========
+
+	// The search of find, but with at most MAX_STEPS steps
+	// and null if it has gone too far.
+	private Entry search( E e ) {
+		Entry t = root;
+		for ( int steps = 0; t != null && steps < MAX_STEPS; steps++ ) {
+			int jfr = e.compareTo( t.element );
+			if ( jfr < 0 )
+				t = t.left;
+			else if ( jfr > 0 )
+				t = t.right;
+			else
+				return t;
+		}
+		return null;
+	}  // search
+	// ========== ========== ========== ==========
+	/**
+	*  Find the first occurence of an element
+	*  in the collection that is equal to the argument
+	*  <tt>e</tt> with respect to its natural order.
+	*  I.e. <tt>e.compateTo(element)</tt> is 0.
+	*  First without any lock, then under the read lock
+	*  if a change has been made meanwhile.
+	*
+	*  @param e The dummy element to compare to.
+	*  @return  An element  <tt>e'</tt> in the collection
+	*           satisfying <tt>e.compareTo(e') == 0</tt>.
+	*           If no element is found, <tt>null</tt> is returned
+	*/
+	public E get( E e ) {
+		long stamp = lock.tryOptimisticRead();
+		if ( stamp != 0 ) {
+			E found = null;
+			RuntimeException failure = null;
+			try {
+				Entry t = search( e );
+				if ( t != null )
+					found = t.element;   // may be swapped by a rotation
+			}
+			catch ( RuntimeException ex ) {
+				// e.g. a null seen in a half made change
+				failure = ex;
+			}
+			if ( lock.validate( stamp ) ) {
+				if ( failure != null )
+					throw failure;       // thrown by compareTo itself
+				return found;
+			}
+		}
+		stamp = lock.readLock();
+		try {
+			Entry t = find( e, root );
+			return t == null ? null : t.element;
+		}
+		finally {
+			lock.unlockRead( stamp );
+		}
+	}  // get
+
+	public boolean contains( E elem ) {
+		return get( elem ) != null;
+	}  // contains
+	// ========== ========== ========== ==========
+
+	public int size() {
+		long stamp = lock.tryOptimisticRead();
+		int s = size;
+		if ( !lock.validate( stamp ) ) {
+			stamp = lock.readLock();
+			try {
+				s = size;
+			}
+			finally {
+				lock.unlockRead( stamp );
+			}
+		}
+		return s;
+	}  // size
+	// ========== ========== ========== ==========
+
+	public boolean add( E elem ) {
+		long stamp = lock.writeLock();
+		try {
+			return super.add( elem );
+		}
+		finally {
+			lock.unlockWrite( stamp );
+		}
+	}  // add
+
+	public E addIfAbsent( E elem ) {
+		long stamp = lock.writeLock();
+		try {
+			return super.addIfAbsent( elem );
+		}
+		finally {
+			lock.unlockWrite( stamp );
+		}
+	}  // addIfAbsent
+
+	public boolean remove( E elem ) {
+		long stamp = lock.writeLock();
+		try {
+			return super.remove( elem );
+		}
+		finally {
+			lock.unlockWrite( stamp );
+		}
+	}  // remove
+
+	public void clear() {
+		long stamp = lock.writeLock();
+		try {
+			super.clear();
+		}
+		finally {
+			lock.unlockWrite( stamp );
+		}
+	}  // clear
+	// ========== ========== ========== ==========
+	/**
+	* Create an iterator over a copy of the elements in the order
+	* of the iterator in <tt>BinarySearchTree</tt>, so it never sees
+	* the changes made after it was created.
+	* @return the created iterator.
+	*/
+	public Iterator<E> iterator() {
+		return snapshotIterator( false );
+	}  //  iterator
+
+	/**
+	* Create an iterator over a copy of the elements in descending
+	* order, as <tt>iterator</tt> does in ascending order.
+	* @return the created iterator.
+	*/
+	public Iterator<E> descendingIterator() {
+		return snapshotIterator( true );
+	}  //  descendingIterator
+
+	// Copy the elements under the read lock. The iterator removes
+	// through remove in this class, which takes the write lock.
+	private Iterator<E> snapshotIterator( boolean descending ) {
+		final List<E> snapshot = new ArrayList<E>();
+		long stamp = lock.readLock();
+		try {
+			for ( Iterator<E> it = descending ? super.descendingIterator()
+											  : super.iterator();
+				  it.hasNext(); )
+				snapshot.add( it.next() );
+		}
+		finally {
+			lock.unlockRead( stamp );
+		}
+		return new Iterator<E>() {
+			private final Iterator<E> it = snapshot.iterator();
+			private E lastNext = null;
+
+			public boolean hasNext() {
+				return it.hasNext();
+			} // hasNext
+
+			public E next() {
+				return lastNext = it.next();
+			} // next
+
+			public void remove() {
+				if ( lastNext == null )
+					throw new IllegalStateException();
+				ConcurrentAVLwithGet.this.remove( lastNext );
+				lastNext = null;
+			} // remove
+		};
+	}  //  snapshotIterator
+
+	/**
+	* Create a spliterator over a copy of the elements, taken as
+	* for the iterator, so it is safe to use in a parallel stream
+	* while the tree is changed.
+	* @return the created spliterator.
+	*/
+	public Spliterator<E> spliterator() {
+		Object[] snapshot;
+		long stamp = lock.readLock();
+		try {
+			snapshot = new Object[size];
+			int i = 0;
+			for ( Iterator<E> it = super.iterator(); it.hasNext(); )
+				snapshot[i++] = it.next();
+		}
+		finally {
+			lock.unlockRead( stamp );
+		}
+		return Spliterators.spliterator( snapshot,
+			Spliterator.ORDERED | Spliterator.SORTED | Spliterator.IMMUTABLE );
+	}  //  spliterator
+	// ========== ========== ========== ==========
+}  //  class ConcurrentAVLwithGet
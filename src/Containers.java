@@ -0,0 +1,55 @@
+/**
+ * Creates the different implementations of <tt>CollectionWithGet</tt>
+ * from their short names, the same names as on the radio buttons
+ * in <tt>TestFrame</tt>. Used by the drivers that select a
+ * structure from the command line.
+ */
+public class Containers {
+
+	/**
+	* The names accepted by <tt>create</tt>, in the order
+	* the drivers run them when no structure is given.
+	*/
+	public static final String[] NAMES = { "BST", "AVL", "Splay", "SLC", "RB", "BTree", "SkipList",
+										   "ConcurrentAVL", "TopDownSplay", "SemiSplay",
+										   "CompactAVL", "ArrayAVL" };
+
+	// ========== ========== ========== ==========
+	/**
+	* Create a new and empty collection.
+	* @param name one of the names in <tt>NAMES</tt>, case is ignored.
+	* @return the created collection.
+	* @throws IllegalArgumentException if the name is unknown.
+	*/
+	public static <E extends Comparable<? super E>>
+							CollectionWithGet<E> create( String name ) {
+		if ( name.equalsIgnoreCase("BST") )
+			return new BSTwithGet<E>();
+		else if ( name.equalsIgnoreCase("AVL") )
+			return new AVLwithGet<E>();
+		else if ( name.equalsIgnoreCase("Splay") )
+			return new SplayWithGet<E>();
+		else if ( name.equalsIgnoreCase("SLC") )
+			return new SLCWithGet<E>();
+		else if ( name.equalsIgnoreCase("RB") )
+			return new RBTreeWithGet<E>();
+		else if ( name.equalsIgnoreCase("BTree") )
+			return new BTreeWithGet<E>();
+		else if ( name.equalsIgnoreCase("SkipList") )
+			return new SkipListWithGet<E>();
+		else if ( name.equalsIgnoreCase("ConcurrentAVL") )
+			return new ConcurrentAVLwithGet<E>();
+		else if ( name.equalsIgnoreCase("TopDownSplay") )
+			return new TopDownSplayWithGet<E>();
+		else if ( name.equalsIgnoreCase("SemiSplay") )
+			return new SplayWithGet<E>( 16, true );
+		else if ( name.equalsIgnoreCase("CompactAVL") )
+			return new CompactAVLwithGet<E>();
+		else if ( name.equalsIgnoreCase("ArrayAVL") )
+			return new ArrayAVLwithGet<E>();
+		else
+			throw new IllegalArgumentException( "Unknown structure: " + name
+				+ ", expected one of " + java.util.Arrays.toString(NAMES) );
+	} // create
+	// ========== ========== ========== ==========
+} // class Containers
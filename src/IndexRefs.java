@@ -0,0 +1,222 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.text.NumberFormat;
+import java.util.*;
+
+/**
+ * A command line version of <tt>TestFrame</tt> for batch jobs
+ * on machines without a display. Each file given is indexed with
+ * <tt>TestFrame.findRefs</tt> into a <tt>TestMapWithCounter</tt>
+ * using the chosen structure, and the reference list is written
+ * to the output. The figures that <tt>TestFrame</tt> shows,
+ * together with throughput and peak heap, are written to
+ * <tt>System.err</tt>.
+ *
+ * Usage:
+ * <pre>
+ *   java IndexRefs [-s BST|AVL|Splay|SLC] [-o outfile] [-e charset] [-p | -m] [file ...]
+ * </pre>
+ * Without <tt>-o</tt>, or with <tt>-o -</tt>, the reference list
+ * goes to <tt>System.out</tt>. Without files, or with the file
+ * <tt>-</tt>, the text is read from <tt>System.in</tt>.
+ * The text is decoded with the platform charset unless
+ * <tt>-e</tt> is given. With <tt>-p</tt> the text is read as a whole
+ * and indexed by <tt>Referenslista.findRefsParallel</tt>. With
+ * <tt>-m</tt> each file is memory mapped and indexed by
+ * <tt>Referenslista.findRefsMapped</tt>.
+ */
+public class IndexRefs {
+
+	private String       structure = "BST";
+	private String       output    = "-";
+	private String       charset   = null;
+	private boolean      parallel  = false;
+	private boolean      mapped    = false;
+	private List<String> inputs    = new ArrayList<String>();
+	private NumberFormat nf        = NumberFormat.getInstance( Locale.UK );
+
+	// ========== ========== ========== ==========
+	private IndexRefs() {
+		nf.setGroupingUsed( true );
+		nf.setMaximumFractionDigits( 2 );
+	} // constructor IndexRefs
+	// ========== ========== ========== ==========
+
+	/**
+	* Index all inputs and write their reference lists.
+	*/
+	private void run() throws IOException {
+		List<MemoryPoolMXBean> heap = new ArrayList<MemoryPoolMXBean>();
+		for ( MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() )
+			if ( pool.getType() == MemoryType.HEAP ) {
+				pool.resetPeakUsage();
+				heap.add( pool );
+			}
+		PrintStream out = output.equals("-") ? System.out
+			: new PrintStream( new BufferedOutputStream( new FileOutputStream( output ) ) );
+		try {
+			long totLines = 0, totWords = 0, totCmp = 0, totNanos = 0;
+			for ( String input : inputs ) {
+				TestMapWithCounter<String,List<Integer>> map =
+					new TestMapWithCounter<String,List<Integer>>(
+						Containers.<TestMapWithCounter.TestMapEntry<String,List<Integer>>>create( structure ), true );
+				long nanos = System.nanoTime();
+				int lines;
+				if ( mapped ) {
+					if ( input.equals("-") )
+						throw new IOException( "-m needs files, not System.in" );
+					map.resetCounter();
+					lines = Referenslista.findRefsMapped( new File( input ), charset(), map );
+				}
+				else if ( parallel ) {
+					CharSequence text = readAll( input );
+					map.resetCounter();
+					lines = Referenslista.findRefsParallel( text, map );
+				}
+				else {
+					Scanner text = newScanner( input );
+					map.resetCounter();
+					lines = TestFrame.findRefs( text, map );
+					if ( text.ioException() != null )
+						throw text.ioException();   // Scanner stops silently otherwise
+					text.close();
+				}
+				nanos = System.nanoTime() - nanos;
+				long cmp = map.getCounter();
+
+				long words = 0;
+				if ( inputs.size() > 1 )
+					out.println( "# " + input );
+				for ( Map.Entry<String,List<Integer>> me : map.entrySet() ) {
+					out.println( me.getKey() + "  " + me.getValue() );
+					words += me.getValue().size();
+				}
+				report( input, lines, words, cmp, nanos );
+				totLines += lines; totWords += words;
+				totCmp   += cmp;   totNanos += nanos;
+			}
+			if ( inputs.size() > 1 )
+				report( "total", totLines, totWords, totCmp, totNanos );
+		}
+		finally {
+			out.flush();
+			if ( out != System.out )
+				out.close();
+		}
+		long peak = 0;
+		for ( MemoryPoolMXBean pool : heap )
+			peak += pool.getPeakUsage().getUsed();
+		System.err.println( "peak heap:    " + nf.format( peak / (1024.0 * 1024.0) ) + " MB" );
+	} // run
+	// ========== ========== ========== ==========
+
+	private Scanner newScanner( String input ) throws IOException {
+		if ( charset == null )
+			return input.equals("-") ? new Scanner( System.in )
+									 : new Scanner( new File( input ) );
+		else
+			return input.equals("-") ? new Scanner( System.in, charset )
+									 : new Scanner( new File( input ), charset );
+	} // newScanner
+	// ========== ========== ========== ==========
+
+	private Charset charset() {
+		return charset == null ? Charset.defaultCharset() : Charset.forName( charset );
+	} // charset
+	// ========== ========== ========== ==========
+
+	private CharSequence readAll( String input ) throws IOException {
+		byte[] bytes;
+		if ( input.equals("-") ) {
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			byte[] buf = new byte[1 << 16];
+			for ( int n; (n = System.in.read( buf )) > 0; )
+				bout.write( buf, 0, n );
+			bytes = bout.toByteArray();
+		}
+		else
+			bytes = Files.readAllBytes( new File( input ).toPath() );
+		return charset().newDecoder()
+				 .onMalformedInput( CodingErrorAction.REPORT )
+				 .onUnmappableCharacter( CodingErrorAction.REPORT )
+				 .decode( ByteBuffer.wrap( bytes ) );
+	} // readAll
+	// ========== ========== ========== ==========
+
+	private static void usage() {
+		System.err.println( "usage: java IndexRefs [-s "
+			+ String.join( "|", Containers.NAMES )
+			+ "] [-o outfile] [-e charset] [-p | -m] [file ...]" );
+		System.exit( 2 );
+	} // usage
+	// ========== ========== ========== ==========
+
+	private void report( String name, long lines, long words, long cmp, long nanos ) {
+		double sec = nanos / 1e9;
+		System.err.println( name + " (" + structure + ")" );
+		System.err.println( "  lines:       " + nf.format( lines )
+							+ "  (" + nf.format( lines / sec ) + " lines/s)" );
+		System.err.println( "  words:       " + nf.format( words )
+							+ "  (" + nf.format( words / sec ) + " words/s)" );
+		System.err.println( "  comparisons: " + nf.format( cmp ) );
+		System.err.println( "  wall time:   " + nf.format( nanos / 1e6 ) + " ms" );
+	} // report
+	// ========== ========== ========== ==========
+
+	public static void main( String[] args ) throws Exception {
+		final IndexRefs ir = new IndexRefs();
+		for ( int i = 0; i < args.length; i++ ) {
+			if ( args[i].equals("-s") && i + 1 < args.length )
+				ir.structure = args[++i];
+			else if ( args[i].equals("-o") && i + 1 < args.length )
+				ir.output = args[++i];
+			else if ( args[i].equals("-e") && i + 1 < args.length )
+				ir.charset = args[++i];
+			else if ( args[i].equals("-p") )
+				ir.parallel = true;
+			else if ( args[i].equals("-m") )
+				ir.mapped = true;
+			else if ( args[i].startsWith("-") && args[i].length() > 1 )
+				usage();
+			else
+				ir.inputs.add( args[i] );
+		}
+		if ( ir.inputs.isEmpty() )
+			ir.inputs.add( "-" );
+		try {
+			Containers.create( ir.structure );   // fail early on a bad name
+		}
+		catch ( IllegalArgumentException iae ) {
+			System.err.println( iae.getMessage() );
+			usage();
+		}
+
+		// findRefs into a BinarySearchTree recurses as deep as the
+		// tree, which for sorted input is the number of words.
+		final Exception[] failure = new Exception[1];
+		Thread t = new Thread( null, new Runnable() {
+			public void run() {
+				try {
+					ir.run();
+				}
+				catch ( Exception e ) {
+					failure[0] = e;
+				}
+			}
+		}, "IndexRefs", 1L << 30 );
+		t.start();
+		t.join();
+		if ( failure[0] instanceof IOException ) {
+			System.err.println( failure[0] );
+			System.exit( 1 );
+		}
+		else if ( failure[0] != null )
+			throw failure[0];
+	} // main
+}  // class IndexRefs
@@ -22,6 +22,13 @@ public class LinkedCollection<E> extends AbstractCollection<E> {
 	*/
 	protected Entry head;
 
+	/**
+	* <tt> size </tt> is the number of elements, kept
+	* up to date by every change of the list, also
+	* by subclasses.
+	*/
+	protected int size;
+
 	// ========== ========== ========== ==========
 	/**
 	* The class of objects used as nodes of the
@@ -45,6 +52,7 @@ public class LinkedCollection<E> extends AbstractCollection<E> {
 	*/
 	public LinkedCollection() {
 		head = null;
+		size = 0;
 	}  // constructor LinkedCollection
 	// ========== ========== ========== ==========
 	/**
@@ -52,10 +60,7 @@ public class LinkedCollection<E> extends AbstractCollection<E> {
 	* @return The number of elements in the container.
 	*/
 	public int size() {
-		int count = 0;
-		for ( Entry p = head; p != null; p = p.next )
-			count++;
-		return count;
+		return size;
 	} // size
 	// ========== ========== ========== ==========
 	/**
@@ -82,6 +87,7 @@ public class LinkedCollection<E> extends AbstractCollection<E> {
 			throw new NullPointerException();
 		else {
 			head = new Entry( element, head );
+			size++;
 			return true;
 		}
 	} // add
@@ -103,17 +109,21 @@ public class LinkedCollection<E> extends AbstractCollection<E> {
 		// not necessary, but much more efficient
 		// than to remove the elements one by one
 		head = null;
+		size = 0;
 	} // isEmpty
 	// ========== ========== ========== ==========
 	// ========== ========== ========== ==========
 	private class LinkedCollectionIterator
 	implements Iterator<E> {
 
-		Entry   next, previous;
+		// beforePrevious is the entry before previous, or
+		// null if previous is the head, so remove needs no search
+		Entry   next, previous, beforePrevious;
 
 		LinkedCollectionIterator() {
-			next          = head;
-			previous      = null;
+			next           = head;
+			previous       = null;
+			beforePrevious = null;
 		} //  constructor LinkedCollectionIterator
 
 
@@ -123,6 +133,8 @@ public class LinkedCollection<E> extends AbstractCollection<E> {
 
 		public E next() {
 			try {
+				if ( previous != null )
+					beforePrevious = previous;
 				previous      = next;
 				next          = next.next;
 				return previous.element;
@@ -135,14 +147,11 @@ public class LinkedCollection<E> extends AbstractCollection<E> {
 
 		public void remove() {
 			if ( previous != null ) {
-				if ( previous == head )
+				if ( beforePrevious == null )
 					head = head.next;
-				else {
-					Entry p = head;
-					while ( p.next != previous )
-						p = p.next;
-					p.next = p.next.next;
-				}
+				else
+					beforePrevious.next = previous.next;
+				size--;
 				previous = null;
 			}
 			else
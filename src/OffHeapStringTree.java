@@ -0,0 +1,475 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+
+/**
+ *  A sorted collection of <tt>String</tt>s, kept as an AVL tree
+ *  outside the Java heap. The entries and the chars of the strings
+ *  are in direct <tt>ByteBuffer</tt>s, allocated in blocks of 1 MB
+ *  as from an arena, so the garbage collector only sees the blocks,
+ *  however many strings there are.
+ *
+ *  An entry is 16 bytes: the indices of its left and right child,
+ *  where the chars of its string start, and the length of the string
+ *  together with the height of its subtree. The chars are stored as
+ *  UTF-16, and a search compares the chars of the searched string
+ *  directly to them, in the order of <tt>String.compareTo</tt>.
+ *  The strings given by <tt>get</tt> and the iterator are created
+ *  from the stored chars.
+ *
+ *  The chars of a removed string stay in their block until there
+ *  are more of them than of the strings in the tree, then the
+ *  strings are copied to new blocks. <tt>clear</tt> drops all blocks.
+ *  A string may be at most <tt>MAX_LENGTH</tt> chars.
+ */
+public class OffHeapStringTree extends AbstractCollection<String>
+							   implements CollectionWithGet<String> {
+
+	private static final int NIL = 0;
+
+	// an entry is 4 ints: left, right, key, height << 24 | length
+	private static final int NODE_SHIFT = 16,                // entries per block
+							 NODE_MASK  = (1 << NODE_SHIFT) - 1;
+	private static final int KEY_SHIFT  = 19,                // chars per block
+							 KEY_MASK   = (1 << KEY_SHIFT) - 1;
+
+	/**
+	* The length of the longest string that can be stored.
+	*/
+	public static final int MAX_LENGTH = 1 << KEY_SHIFT;
+
+	private ByteBuffer[] nodeBlocks, keyBlocks;
+	private int  nodeCount;     // entries used or free, index 0 is NIL
+	private int  keyBlockCount;
+	private long keyEnd;        // where the next string is put
+	private long liveChars, deadChars;
+	private int  free;          // the first free entry, linked by left
+	private int  root;
+	private int  size;
+	private int  modCount;
+	private boolean changed;    // set by insert and delete
+	private int     found;      // the equal entry insert found
+
+	// ========== ========== ========== ==========
+	/**
+	*  The constructor creates the empty tree
+	*/
+	public OffHeapStringTree() {
+		super();
+		clear();
+	}  // constructor OffHeapStringTree
+	// ========== ========== ========== ==========
+
+	public int size() {
+		return size;
+	}  // size
+
+	/**
+	* Remove all strings, and let go of all blocks.
+	*/
+	public void clear() {
+		nodeBlocks = new ByteBuffer[4];
+		keyBlocks  = new ByteBuffer[4];
+		nodeBlocks[0] = block();
+		nodeCount = 1;             // NIL has height 0
+		keyBlockCount = 0;
+		keyEnd = liveChars = deadChars = 0;
+		free = root = NIL;
+		size = 0;
+		modCount++;
+	}  // clear
+
+	private static ByteBuffer block() {
+		return ByteBuffer.allocateDirect( 1 << 20 ).order( ByteOrder.nativeOrder() );
+	}  // block
+	// ========== ========== ========== ==========
+	//  The fields of an entry
+
+	private ByteBuffer nodes( int x ) {
+		return nodeBlocks[x >>> NODE_SHIFT];
+	}  // nodes
+
+	private static int at( int x, int field ) {
+		return ((x & NODE_MASK) << 4) + (field << 2);
+	}  // at
+
+	private int left( int x ) {
+		return nodes( x ).getInt( at( x, 0 ) );
+	}  // left
+
+	private int right( int x ) {
+		return nodes( x ).getInt( at( x, 1 ) );
+	}  // right
+
+	private int key( int x ) {
+		return nodes( x ).getInt( at( x, 2 ) );
+	}  // key
+
+	private int length( int x ) {
+		return nodes( x ).getInt( at( x, 3 ) ) & 0xffffff;
+	}  // length
+
+	private int height( int x ) {
+		return nodes( x ).getInt( at( x, 3 ) ) >>> 24;
+	}  // height
+
+	private void setLeft( int x, int y ) {
+		nodes( x ).putInt( at( x, 0 ), y );
+	}  // setLeft
+
+	private void setRight( int x, int y ) {
+		nodes( x ).putInt( at( x, 1 ), y );
+	}  // setRight
+
+	private void setKey( int x, int key, int length, int height ) {
+		nodes( x ).putInt( at( x, 2 ), key );
+		nodes( x ).putInt( at( x, 3 ), height << 24 | length );
+	}  // setKey
+
+	private void checkHeight( int x ) {
+		int h = 1 + Math.max( height( left( x ) ), height( right( x ) ) );
+		nodes( x ).putInt( at( x, 3 ), h << 24 | length( x ) );
+	}  // checkHeight
+	// ========== ========== ========== ==========
+
+	// Put the chars of s in the key blocks and return where they start,
+	// in chars. A string is never split between two blocks.
+	private int storeKey( CharSequence s ) {
+		int len = s.length();
+		if ( keyEnd + len > (long) keyBlockCount << KEY_SHIFT ) {
+			if ( keyBlockCount == keyBlocks.length )
+				keyBlocks = Arrays.copyOf( keyBlocks, keyBlockCount * 2 );
+			keyBlocks[keyBlockCount] = block();
+			keyEnd = (long) keyBlockCount++ << KEY_SHIFT;
+		}
+		if ( keyEnd + len > Integer.MAX_VALUE )
+			throw new IllegalStateException( "more than 2^31 chars" );
+		int start = (int) keyEnd;
+		ByteBuffer b = keyBlocks[start >>> KEY_SHIFT];
+		int pos = (start & KEY_MASK) << 1;
+		for ( int i = 0; i < len; i++, pos += 2 )
+			b.putChar( pos, s.charAt( i ) );
+		keyEnd += len;
+		liveChars += len;
+		return start;
+	}  // storeKey
+
+	// The same as s.compareTo( the string of x )
+	private int compare( CharSequence s, int x ) {
+		int start = key( x ), len = length( x );
+		ByteBuffer b = keyBlocks[start >>> KEY_SHIFT];
+		int pos = (start & KEY_MASK) << 1;
+		int lim = Math.min( s.length(), len );
+		for ( int i = 0; i < lim; i++, pos += 2 ) {
+			char c1 = s.charAt( i ), c2 = b.getChar( pos );
+			if ( c1 != c2 )
+				return c1 - c2;
+		}
+		return s.length() - len;
+	}  // compare
+
+	private String string( int x ) {
+		int start = key( x ), len = length( x );
+		ByteBuffer b = keyBlocks[start >>> KEY_SHIFT];
+		int pos = (start & KEY_MASK) << 1;
+		char[] cs = new char[len];
+		for ( int i = 0; i < len; i++, pos += 2 )
+			cs[i] = b.getChar( pos );
+		return new String( cs );
+	}  // string
+	// ========== ========== ========== ==========
+
+	private int newEntry( CharSequence s ) {
+		int x = free;
+		if ( x != NIL )
+			free = left( x );
+		else {
+			x = nodeCount++;
+			int block = x >>> NODE_SHIFT;
+			if ( block == nodeBlocks.length )
+				nodeBlocks = Arrays.copyOf( nodeBlocks, block * 2 );
+			if ( nodeBlocks[block] == null )
+				nodeBlocks[block] = block();
+		}
+		setLeft( x, NIL );
+		setRight( x, NIL );
+		setKey( x, storeKey( s ), s.length(), 1 );
+		return x;
+	}  // newEntry
+
+	private void freeEntry( int x ) {
+		deadChars += length( x );
+		liveChars -= length( x );
+		setLeft( x, free );
+		free = x;
+	}  // freeEntry
+	// ========== ========== ========== ==========
+	/**
+	*  Find the string in the collection that is equal to the
+	*  argument, compared to the stored chars as by
+	*  <tt>String.compareTo</tt>.
+	*
+	*  @param e The string to search for.
+	*  @return  An equal string created from the stored chars.
+	*           If no string is found, <tt>null</tt> is returned
+	*/
+	public String get( String e ) {
+		int x = find( e );
+		return x == NIL ? null : string( x );
+	}  // get
+
+	private int find( CharSequence e ) {
+		int t = root;
+		while ( t != NIL ) {
+			int comp = compare( e, t );
+			if ( comp < 0 )
+				t = left( t );
+			else if ( comp > 0 )
+				t = right( t );
+			else
+				return t;
+		}
+		return NIL;
+	}  // find
+
+	/**
+	* Check if the chars of <tt>s</tt> are in the collection,
+	* e.g. a part of a text, without creating a string.
+	*/
+	public boolean contains( CharSequence s ) {
+		return find( s ) != NIL;
+	}  // contains
+
+	public boolean contains( Object o ) {
+		return o instanceof CharSequence && contains( (CharSequence) o );
+	}  // contains
+	// ========== ========== ========== ==========
+
+	private int rotateLeft( int x ) {
+		int y = right( x );
+		setRight( x, left( y ) );
+		setLeft( y, x );
+		checkHeight( x );
+		checkHeight( y );
+		return y;
+	}  // rotateLeft
+
+	private int rotateRight( int x ) {
+		int y = left( x );
+		setLeft( x, right( y ) );
+		setRight( y, x );
+		checkHeight( x );
+		checkHeight( y );
+		return y;
+	}  // rotateRight
+
+	// As in ArrayAVLwithGet
+	private int balance( int x ) {
+		int diff = height( right( x ) ) - height( left( x ) );
+		if ( diff > 1 ) {
+			int r = right( x );
+			if ( height( left( r ) ) > height( right( r ) ) )
+				setRight( x, rotateRight( r ) );
+			return rotateLeft( x );
+		}
+		else if ( diff < -1 ) {
+			int l = left( x );
+			if ( height( right( l ) ) > height( left( l ) ) )
+				setLeft( x, rotateLeft( l ) );
+			return rotateRight( x );
+		}
+		checkHeight( x );
+		return x;
+	}  // balance
+	// ========== ========== ========== ==========
+	/**
+	* Add the string, unless an equal string is in the tree.
+	* @param elem the string to be included
+	* @return true if the string was added.
+	* @throws IllegalArgumentException if it is longer than <tt>MAX_LENGTH</tt>.
+	*/
+	public boolean add( String elem ) {
+		return addIfAbsent( elem ) == null;
+	} // add
+
+	/**
+	* Add the string as <tt>add</tt> does, in the same walk
+	* down that would find an equal string.
+	* @param elem the string to be included
+	* @return an equal string created from the stored chars,
+	*         or <tt>null</tt> if <tt>elem</tt> was added.
+	* @throws IllegalArgumentException if it is longer than <tt>MAX_LENGTH</tt>.
+	*/
+	public String addIfAbsent( String elem ) {
+		if ( elem.length() > MAX_LENGTH )
+			throw new IllegalArgumentException( "longer than " + MAX_LENGTH );
+		changed = false;
+		found   = NIL;
+		root = insert( root, elem );
+		return found == NIL ? null : string( found );
+	} // addIfAbsent
+
+	private int insert( int x, String e ) {
+		if ( x == NIL ) {
+			changed = true;
+			size++;
+			modCount++;
+			return newEntry( e );
+		}
+		int comp = compare( e, x );
+		if ( comp < 0 )
+			setLeft( x, insert( left( x ), e ) );
+		else if ( comp > 0 )
+			setRight( x, insert( right( x ), e ) );
+		else {
+			found = x;
+			return x;
+		}
+		return changed ? balance( x ) : x;
+	}  // insert
+	// ========== ========== ========== ==========
+	/**
+	* Remove the string equal to the argument, if any.
+	*
+	* @param elem the string to remove
+	* @return true if a string has disapeared from the tree,
+	*         false otherwise
+	*/
+	public boolean remove( String elem ) {
+		changed = false;
+		root = delete( root, elem );
+		if ( changed && deadChars > liveChars && deadChars > KEY_MASK )
+			compactKeys();
+		return changed;
+	} // remove
+
+	public boolean remove( Object o ) {
+		return o instanceof String && remove( (String) o );
+	}  // remove
+
+	private int delete( int x, String e ) {
+		if ( x == NIL )
+			return NIL;
+		int comp = compare( e, x );
+		if ( comp < 0 )
+			setLeft( x, delete( left( x ), e ) );
+		else if ( comp > 0 )
+			setRight( x, delete( right( x ), e ) );
+		else {
+			changed = true;
+			size--;
+			modCount++;
+			int y;
+			if ( left( x ) == NIL )
+				y = right( x );
+			else if ( right( x ) == NIL )
+				y = left( x );
+			else {
+				y = right( x );
+				while ( left( y ) != NIL )
+					y = left( y );
+				setRight( y, deleteMin( right( x ) ) );
+				setLeft( y, left( x ) );
+				y = balance( y );
+			}
+			freeEntry( x );
+			return y;
+		}
+		return changed ? balance( x ) : x;
+	}  // delete
+
+	private int deleteMin( int x ) {
+		if ( left( x ) == NIL )
+			return right( x );
+		setLeft( x, deleteMin( left( x ) ) );
+		return balance( x );
+	}  // deleteMin
+	// ========== ========== ========== ==========
+
+	// Copy the chars of the strings in the tree to new blocks
+	// and let go of the old ones.
+	private void compactKeys() {
+		ByteBuffer[] old = keyBlocks;
+		keyBlocks = new ByteBuffer[4];
+		keyBlockCount = 0;
+		keyEnd = liveChars = deadChars = 0;
+		int[] stack = new int[height( root ) + 1];   // a right child per level
+		int top = 0;
+		if ( root != NIL )
+			stack[top++] = root;
+		while ( top > 0 ) {
+			int x = stack[--top];
+			int start = key( x ), len = length( x );
+			ByteBuffer b = old[start >>> KEY_SHIFT].duplicate();
+			b.position( (start & KEY_MASK) << 1 ).limit( ((start & KEY_MASK) + len) << 1 );
+			setKey( x, storeKey( b.order( ByteOrder.nativeOrder() ).asCharBuffer() ), len, height( x ) );
+			if ( right( x ) != NIL )
+				stack[top++] = right( x );
+			if ( left( x ) != NIL )
+				stack[top++] = left( x );
+		}
+	}  // compactKeys
+	// ========== ========== ========== ==========
+	/**
+	* Create an iterator for the strings in order.
+	* @return the created iterator.
+	*/
+	public Iterator<String> iterator() {
+		return new InorderIterator();
+	}  //  iterator
+
+	private class InorderIterator implements Iterator<String> {
+		private int[]  stack = new int[Math.max( 1, height( root ) )];
+		private int    top   = 0;
+		private String lastNext = null;
+		private int    expectedModCount = modCount;
+
+		private InorderIterator() {
+			pushLeft( root );
+		} // constructor InorderIterator
+
+		private void pushLeft( int x ) {
+			for ( ; x != NIL; x = left( x ) )
+				push( x );
+		} // pushLeft
+
+		private void push( int x ) {
+			if ( top == stack.length )
+				stack = Arrays.copyOf( stack, top + 8 );
+			stack[top++] = x;
+		} // push
+
+		public boolean hasNext() {
+			return top > 0;
+		} // hasNext
+
+		public String next() {
+			if ( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			if ( top == 0 )
+				throw new NoSuchElementException();
+			int x = stack[--top];
+			pushLeft( right( x ) );
+			return lastNext = string( x );
+		} // next
+
+		public void remove() {
+			if ( lastNext == null )
+				throw new IllegalStateException();
+			if ( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			OffHeapStringTree.this.remove( lastNext );
+			expectedModCount = modCount;
+			top = 0;
+			for ( int x = root; x != NIL; )
+				if ( compare( lastNext, x ) < 0 ) {
+					push( x );
+					x = left( x );
+				}
+				else
+					x = right( x );
+			lastNext = null;
+		} // remove
+	}  //  class InorderIterator
+	// ========== ========== ========== ==========
+}  //  class OffHeapStringTree
@@ -0,0 +1,231 @@
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * A list of <tt>int</tt>, such as the line numbers of a word in a
+ * reference list, that is stored without boxing. It is a
+ * <tt>List&lt;Integer&gt;</tt>, so it can be used where the reference
+ * lists are typed as such, but <tt>add(int)</tt>,
+ * <tt>intIterator()</tt>, <tt>forEachInt</tt> and <tt>toString()</tt>
+ * never create an <tt>Integer</tt>.
+ *
+ * A plain list keeps the numbers in an <tt>int[]</tt>. A compressed
+ * list keeps the difference to the previous number as a varint,
+ * which for increasing line numbers is mostly one byte. In both
+ * forms <tt>add</tt> is amortized O(1), but in a compressed list
+ * <tt>get(i)</tt> has to decode from the start and is O(i).
+ * Only adding at the end is supported.
+ */
+public class PostingList extends AbstractList<Integer> {
+
+	private final boolean compressed;
+	private int[]  values;   // the numbers of a plain list
+	private byte[] bytes;    // the varints of a compressed list
+	private int    used;     // bytes used in a compressed list
+	private int    size;
+	private int    last;     // the last number added
+
+	// ========== ========== ========== ==========
+	/**
+	* Create an empty plain list.
+	*/
+	public PostingList() {
+		this( false );
+	} // constructor PostingList
+
+	/**
+	* Create an empty list.
+	* @param compressed true to store the numbers as varint deltas.
+	*/
+	public PostingList( boolean compressed ) {
+		this.compressed = compressed;
+		if ( compressed )
+			bytes  = new byte[4];
+		else
+			values = new int[2];
+	} // constructor PostingList
+	// ========== ========== ========== ==========
+
+	public int size() {
+		return size;
+	} // size
+
+	public boolean isCompressed() {
+		return compressed;
+	} // isCompressed
+	// ========== ========== ========== ==========
+	/**
+	* Add a number at the end of the list.
+	* @param value the number to add.
+	*/
+	public void add( int value ) {
+		if ( compressed ) {
+			int delta = value - last;
+			int zz = (delta << 1) ^ (delta >> 31);   // zigzag, small if |delta| is
+			if ( used + 5 > bytes.length )
+				bytes = Arrays.copyOf( bytes, Math.max( used + 5, bytes.length * 3 / 2 ) );
+			while ( (zz & ~0x7f) != 0 ) {
+				bytes[used++] = (byte) ((zz & 0x7f) | 0x80);
+				zz >>>= 7;
+			}
+			bytes[used++] = (byte) zz;
+		}
+		else {
+			if ( size == values.length )
+				values = Arrays.copyOf( values, size + (size >> 1) + 1 );
+			values[size] = value;
+		}
+		last = value;
+		size++;
+		modCount++;
+	} // add
+
+	public boolean add( Integer value ) {
+		add( value.intValue() );
+		return true;
+	} // add
+
+	/**
+	* Add all numbers of <tt>c</tt> at the end of this list,
+	* without boxing if <tt>c</tt> is a <tt>PostingList</tt>.
+	*/
+	public boolean addAll( Collection<? extends Integer> c ) {
+		if ( c == this ) {
+			for ( int value : toIntArray() )
+				add( value );
+			return size > 0;
+		}
+		else if ( c instanceof PostingList ) {
+			PrimitiveIterator.OfInt it = ((PostingList) c).intIterator();
+			while ( it.hasNext() )
+				add( it.nextInt() );
+			return !c.isEmpty();
+		}
+		return super.addAll( c );
+	} // addAll
+	// ========== ========== ========== ==========
+
+	public Integer get( int index ) {
+		return getInt( index );
+	} // get
+
+	/**
+	* The number at <tt>index</tt>, O(1) in a plain list
+	* and O(index) in a compressed list.
+	*/
+	public int getInt( int index ) {
+		if ( index < 0 || index >= size )
+			throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size );
+		if ( !compressed )
+			return values[index];
+		PrimitiveIterator.OfInt it = intIterator();
+		for ( ; index > 0; index-- )
+			it.nextInt();
+		return it.nextInt();
+	} // getInt
+
+	public void clear() {
+		size = used = last = 0;
+		modCount++;
+	} // clear
+
+	/**
+	* The numbers of the list in an array.
+	*/
+	public int[] toIntArray() {
+		if ( !compressed )
+			return Arrays.copyOf( values, size );
+		int[] a = new int[size];
+		PrimitiveIterator.OfInt it = intIterator();
+		for ( int i = 0; i < size; i++ )
+			a[i] = it.nextInt();
+		return a;
+	} // toIntArray
+
+	/**
+	* Give every number of the list, in order, to <tt>action</tt>.
+	*/
+	public void forEachInt( IntConsumer action ) {
+		PrimitiveIterator.OfInt it = intIterator();
+		while ( it.hasNext() )
+			action.accept( it.nextInt() );
+	} // forEachInt
+	// ========== ========== ========== ==========
+
+	public Iterator<Integer> iterator() {
+		return intIterator();
+	} // iterator
+
+	/**
+	* An iterator whose <tt>nextInt</tt> gives the numbers without boxing.
+	*/
+	public PrimitiveIterator.OfInt intIterator() {
+		return new PostingIterator();
+	} // intIterator
+
+	private class PostingIterator implements PrimitiveIterator.OfInt {
+		private int index = 0;   // of the next number
+		private int pos   = 0;   // of its varint
+		private int value = 0;   // the number before it
+		private final int expectedModCount = modCount;
+
+		public boolean hasNext() {
+			return index < size;
+		} // hasNext
+
+		public int nextInt() {
+			if ( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			if ( index >= size )
+				throw new NoSuchElementException();
+			if ( !compressed )
+				return values[index++];
+			int zz = 0;
+			for ( int shift = 0; ; shift += 7 ) {
+				byte b = bytes[pos++];
+				zz |= (b & 0x7f) << shift;
+				if ( b >= 0 )
+					break;
+			}
+			index++;
+			return value += (zz >>> 1) ^ -(zz & 1);
+		} // nextInt
+	} // class PostingIterator
+	// ========== ========== ========== ==========
+
+	// as for any List, but by intIterator so that a compressed
+	// list is not decoded from the start by get for each number
+	public boolean equals( Object o ) {
+		if ( o == this )
+			return true;
+		if ( !(o instanceof List) || ((List<?>) o).size() != size )
+			return false;
+		PrimitiveIterator.OfInt it = intIterator();
+		for ( Object e : (List<?>) o )
+			if ( !(e instanceof Integer) || (Integer) e != it.nextInt() )
+				return false;
+		return true;
+	} // equals
+
+	public int hashCode() {
+		int h = 1;
+		PrimitiveIterator.OfInt it = intIterator();
+		while ( it.hasNext() )
+			h = 31 * h + it.nextInt();   // Integer.hashCode is the value
+		return h;
+	} // hashCode
+
+	// as for an ArrayList, but without boxing
+	public String toString() {
+		StringBuilder sb = new StringBuilder( 2 + 6 * size );
+		sb.append( '[' );
+		PrimitiveIterator.OfInt it = intIterator();
+		while ( it.hasNext() ) {
+			sb.append( it.nextInt() );
+			if ( it.hasNext() )
+				sb.append( ", " );
+		}
+		return sb.append( ']' ).toString();
+	} // toString
+	// ========== ========== ========== ==========
+} // class PostingList
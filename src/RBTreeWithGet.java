@@ -0,0 +1,337 @@
+
+/**
+ *  A binary searchtree ordered by the method compareTo
+ *  for the elements, that is kept balanced as a red-black
+ *  tree. An add needs at most two rotations and a remove
+ *  at most three, the rest of the rebalancing is
+ *  recolouring. The height is at most 2 log(n+1).
+ *  Two elements for which compareTo gives 0 are not allowed.
+ */
+public class RBTreeWithGet<E extends Comparable<? super E>>
+						extends BinarySearchTree<E>
+						implements CollectionWithGet<E> {
+
+	private static final boolean RED = true, BLACK = false;
+
+	// ========== ========== ========== ==========
+	private class RB_Entry extends Entry {
+
+		// a new entry is red, the empty tree (i.e. null) is black
+		boolean color = RED;
+
+		private RB_Entry( E element, Entry parent ) {
+			super( element, parent );
+		} //  constructor RB_Entry
+
+	}  //  class RB_Entry
+	// ========== ========== ========== ==========
+
+	/**
+	*  The constructor creates the empty tree
+	*/
+	public RBTreeWithGet() {
+		super();
+	}  // constructor RBTreeWithGet
+	// ========== ========== ========== ==========
+
+	/**
+	*  Find the first occurence of an element
+	*  in the collection that is equal to the argument
+	*  <tt>e</tt> with respect to its natural order.
+	*  I.e. <tt>e.compateTo(element)</tt> is 0.
+	*
+	*  @param e The dummy element to compare to.
+	*  @return  An element  <tt>e'</tt> in the collection
+	*           satisfying <tt>e.compareTo(e') == 0</tt>.
+	*           If no element is found, <tt>null</tt> is returned
+	*/
+	public E get(E e) {
+		Entry t = find(e,root);
+		return t == null ? null : t.element;
+	}  // get
+	// ========== ========== ========== ==========
+
+	private boolean colorOf( Entry t ) {
+		return t == null ? BLACK : ((RB_Entry) t).color;
+	} // colorOf
+
+	private void setColor( Entry t, boolean color ) {
+		if ( t != null )
+			((RB_Entry) t).color = color;
+	} // setColor
+	// ========== ========== ========== ==========
+	/**
+	* Add the element to its proper empty place, unless an
+	* equal element is in the tree. After the element is
+	* inserted the red-black properties are restored.
+	* @param elem the element to be included
+	* @return true if the element was added.
+	*/
+	public boolean add( E elem ) {
+		return addIfAbsent( elem ) == null;
+	} // add
+
+	/**
+	* Add the element as <tt>add</tt> does, in the same walk
+	* down that would find an equal element.
+	* @param elem the element to be included
+	* @return the equal element in the tree, or <tt>null</tt> if
+	*         <tt>elem</tt> was added.
+	*/
+	public E addIfAbsent( E elem ) {
+		if ( root == null ) {
+			root = new RB_Entry( elem, null );
+			setColor( root, BLACK );
+			size++;
+			return null;
+		}
+		Entry t = root, parent;
+		int comp;
+		do {
+			parent = t;
+			comp = elem.compareTo( t.element );
+			if ( comp < 0 )
+				t = t.left;
+			else if ( comp > 0 )
+				t = t.right;
+			else
+				return t.element;
+		} while ( t != null );
+		Entry x = new RB_Entry( elem, parent );
+		if ( comp < 0 )
+			parent.left = x;
+		else
+			parent.right = x;
+		fixAfterInsertion( x );
+		size++;
+		return null;
+	} // addIfAbsent
+	// ========== ========== ========== ==========
+	/**
+	* Remove the element equal to the argument, if any.
+	* After the element is removed the red-black
+	* properties are restored.
+	*
+	* @param elem any element with the searched key
+	* @return true if an element has disapeared from the tree,
+	*         false otherwise
+	*/
+	public boolean remove( E elem ) {
+		Entry t = find( elem, root );
+		if ( t == null )
+			return false;
+		removeThis( t );
+		return true;
+	} // remove
+	// ========== ========== ========== ==========
+
+	//  Also used by the iterator in BinarySearchTree
+	protected void removeThis( Entry t ) {
+		deleteEntry( t );
+		size--;
+	}  //  removeThis
+	// ========== ========== ========== ==========
+
+	// Let the x red entry find its place, by recolouring upwards
+	// while both x and its parent are red, and at most two rotations
+	private void fixAfterInsertion( Entry x ) {
+		while ( x != root && colorOf( x.parent ) == RED ) {
+			Entry p = x.parent,
+				  g = p.parent;    // exists since the root is black
+			if ( p == g.left ) {
+				Entry uncle = g.right;
+				if ( colorOf( uncle ) == RED ) {
+					setColor( p, BLACK );
+					setColor( uncle, BLACK );
+					setColor( g, RED );
+					x = g;
+				}
+				else {
+					if ( x == p.right ) {
+						x = p;
+						rotateLeft( x );
+						p = x.parent;
+					}
+					setColor( p, BLACK );
+					setColor( g, RED );
+					rotateRight( g );
+				}
+			}
+			else {
+				Entry uncle = g.left;
+				if ( colorOf( uncle ) == RED ) {
+					setColor( p, BLACK );
+					setColor( uncle, BLACK );
+					setColor( g, RED );
+					x = g;
+				}
+				else {
+					if ( x == p.left ) {
+						x = p;
+						rotateRight( x );
+						p = x.parent;
+					}
+					setColor( p, BLACK );
+					setColor( g, RED );
+					rotateLeft( g );
+				}
+			}
+		}
+		setColor( root, BLACK );
+	} // fixAfterInsertion
+	// ========== ========== ========== ==========
+
+	// Unlink p. As in BinarySearchTree an entry with two children
+	// gets the element of the rightmost entry in its left subtree,
+	// which is unlinked instead.
+	private void deleteEntry( Entry p ) {
+		if ( p.left != null && p.right != null ) {
+			Entry s = p.left;
+			while ( s.right != null )
+				s = s.right;
+			p.element = s.element;
+			p = s;
+		}
+		Entry replacement = p.left != null ? p.left : p.right;
+		if ( replacement != null ) {
+			replacement.parent = p.parent;
+			if ( p.parent == null )
+				root = replacement;
+			else if ( p == p.parent.left )
+				p.parent.left = replacement;
+			else
+				p.parent.right = replacement;
+			p.left = p.right = p.parent = null;
+			if ( colorOf( p ) == BLACK )
+				fixAfterDeletion( replacement );
+		}
+		else if ( p.parent == null )
+			root = null;
+		else {
+			// p is a leaf, let it stand in for the empty tree while fixing
+			if ( colorOf( p ) == BLACK )
+				fixAfterDeletion( p );
+			if ( p.parent != null ) {
+				if ( p == p.parent.left )
+					p.parent.left = null;
+				else if ( p == p.parent.right )
+					p.parent.right = null;
+				p.parent = null;
+			}
+		}
+	} // deleteEntry
+	// ========== ========== ========== ==========
+
+	// x has one black too few on its paths, move the missing
+	// black up by recolouring or fix it with at most three rotations
+	private void fixAfterDeletion( Entry x ) {
+		while ( x != root && colorOf( x ) == BLACK ) {
+			if ( x == x.parent.left ) {
+				Entry sib = x.parent.right;
+				if ( colorOf( sib ) == RED ) {
+					setColor( sib, BLACK );
+					setColor( x.parent, RED );
+					rotateLeft( x.parent );
+					sib = x.parent.right;
+				}
+				if ( colorOf( sib.left ) == BLACK && colorOf( sib.right ) == BLACK ) {
+					setColor( sib, RED );
+					x = x.parent;
+				}
+				else {
+					if ( colorOf( sib.right ) == BLACK ) {
+						setColor( sib.left, BLACK );
+						setColor( sib, RED );
+						rotateRight( sib );
+						sib = x.parent.right;
+					}
+					setColor( sib, colorOf( x.parent ) );
+					setColor( x.parent, BLACK );
+					setColor( sib.right, BLACK );
+					rotateLeft( x.parent );
+					x = root;
+				}
+			}
+			else {
+				Entry sib = x.parent.left;
+				if ( colorOf( sib ) == RED ) {
+					setColor( sib, BLACK );
+					setColor( x.parent, RED );
+					rotateRight( x.parent );
+					sib = x.parent.left;
+				}
+				if ( colorOf( sib.right ) == BLACK && colorOf( sib.left ) == BLACK ) {
+					setColor( sib, RED );
+					x = x.parent;
+				}
+				else {
+					if ( colorOf( sib.left ) == BLACK ) {
+						setColor( sib.right, BLACK );
+						setColor( sib, RED );
+						rotateLeft( sib );
+						sib = x.parent.left;
+					}
+					setColor( sib, colorOf( x.parent ) );
+					setColor( x.parent, BLACK );
+					setColor( sib.left, BLACK );
+					rotateRight( x.parent );
+					x = root;
+				}
+			}
+		}
+		setColor( x, BLACK );
+	} // fixAfterDeletion
+	// ========== ========== ========== ==========
+
+     /* Rotera 1 steg i vanstervarv, dvs
+               x'                 y'
+              / \                / \
+             A   y'  -->        x'  C
+                / \            / \
+               B   C          A   B
+        Here the entries are relinked, the elements stay
+     */
+	private void rotateLeft( Entry x ) {
+		rotations++;
+		Entry y = x.right;
+		x.right = y.left;
+		if ( y.left != null )
+			y.left.parent = x;
+		y.parent = x.parent;
+		if ( x.parent == null )
+			root = y;
+		else if ( x.parent.left == x )
+			x.parent.left = y;
+		else
+			x.parent.right = y;
+		y.left   = x;
+		x.parent = y;
+	} //   rotateLeft
+	// ========== ========== ========== ==========
+
+     /* Rotera 1 steg i hogervarv, dvs
+               x'                 y'
+              / \                / \
+             y'  C   -->        A   x'
+            / \                    / \
+           A   B                  B   C
+        Here the entries are relinked, the elements stay
+     */
+	private void rotateRight( Entry x ) {
+		rotations++;
+		Entry y = x.left;
+		x.left = y.right;
+		if ( y.right != null )
+			y.right.parent = x;
+		y.parent = x.parent;
+		if ( x.parent == null )
+			root = y;
+		else if ( x.parent.right == x )
+			x.parent.right = y;
+		else
+			x.parent.left = y;
+		y.right  = x;
+		x.parent = y;
+	} //   rotateRight
+	// ========== ========== ========== ==========
+}  //  class RBTreeWithGet
@@ -0,0 +1,437 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import static java.lang.Character.isLetter;
+
+/**
+ * Variants of <tt>TestFrame.findRefs</tt> for large texts.
+ * They build the same word reference list as <tt>findRefs</tt>:
+ * for each word, the line numbers of its occurrences in order.
+ *
+ * <tt>findRefsParallel</tt> cuts the text into chunks at line
+ * boundaries and indexes the chunks in a <tt>ForkJoinPool</tt>, each
+ * into its own map. The chunk maps are merged pairwise, and the
+ * words are put into the given map in the order they first occur
+ * in the text. The given map therefore gets the same keys, the same
+ * lists and the same insertion order as with <tt>findRefs</tt>. For a
+ * tree this also means the same shape.
+ *
+ * The line numbers are kept in a <tt>PostingList</tt> for each word.
+ *
+ * <tt>findRefsMapped</tt> reads a file through <tt>FileChannel.map</tt>
+ * and finds words and line breaks directly in the mapped bytes,
+ * without a <tt>Scanner</tt> or a <tt>String</tt> per line.
+ */
+public class Referenslista {
+
+	// A chunk is never cut smaller than this many chars
+	private static final int MIN_CHUNK = 1 << 16;
+
+	// The part of a file that is mapped at a time
+	private static final int WINDOW = 1 << 30;
+
+	// LETTER[b] is isLetter((char) b) for one byte
+	private static final boolean[] LETTER = new boolean[256];
+	static {
+		for ( int b = 0; b < 256; b++ )
+			LETTER[b] = isLetter( (char) b );
+	}
+
+	// ========== ========== ========== ==========
+	/**
+	* Index the words of a text in parallel, using the common pool.
+	* Lines are separated as by <tt>Scanner.nextLine</tt>.
+	*
+	* @param text the whole text.
+	* @param map the map that is filled in with the references.
+	* @return the number of lines in the text.
+	*/
+	public static int findRefsParallel( CharSequence text,
+										Map<String,List<Integer>> map ) {
+		return findRefsParallel( text, map, ForkJoinPool.commonPool() );
+	} // findRefsParallel
+	// ========== ========== ========== ==========
+	/**
+	* Index the words of a text in parallel in the given pool.
+	* Lines are separated as by <tt>Scanner.nextLine</tt>.
+	*
+	* @param text the whole text.
+	* @param map the map that is filled in with the references.
+	* @param pool the pool the chunks are indexed in.
+	* @return the number of lines in the text.
+	*/
+	public static int findRefsParallel( CharSequence text,
+										Map<String,List<Integer>> map,
+										ForkJoinPool pool ) {
+		int chunkSize = Math.max( MIN_CHUNK,
+								  text.length() / (4 * pool.getParallelism()) + 1 );
+		List<Integer> cuts = new ArrayList<Integer>();
+		cuts.add( 0 );
+		for ( int pos = chunkSize; pos < text.length(); pos += chunkSize ) {
+			pos = nextLineStart( text, pos );
+			if ( pos < text.length() )
+				cuts.add( pos );
+		}
+		cuts.add( text.length() );
+
+		// The first line of each chunk is needed before indexing it,
+		// so count the lines of all chunks first.
+		int chunks = cuts.size() - 1;
+		int[] firstLine = new int[chunks + 1];
+		int[] lines = pool.invoke( new LineCounter( text, cuts, 0, chunks ) );
+		firstLine[0] = 1;
+		for ( int i = 0; i < chunks; i++ )
+			firstLine[i + 1] = firstLine[i] + lines[i];
+
+		Map<String,List<Integer>> refs =
+			pool.invoke( new Indexer( text, cuts, firstLine, 0, chunks ) );
+		for ( Map.Entry<String,List<Integer>> me : refs.entrySet() )
+			map.put( me.getKey(), me.getValue() );
+		return firstLine[chunks] - 1;
+	} // findRefsParallel
+	// ========== ========== ========== ==========
+
+	/**
+	* Find the start of the line after the one <tt>pos</tt> is on,
+	* or the end of the text. "\r\n" is one line separator.
+	*/
+	private static int nextLineStart( CharSequence text, int pos ) {
+		int len = text.length();
+		while ( pos < len && !isLineSeparator( text.charAt(pos) ) )
+			pos++;
+		if ( pos < len && text.charAt(pos) == '\r'
+					   && pos + 1 < len && text.charAt(pos + 1) == '\n' )
+			pos++;
+		return Math.min( len, pos + 1 );
+	} // nextLineStart
+
+	// the separators of Scanner.nextLine
+	private static boolean isLineSeparator( char c ) {
+		return c == '\n' || c == '\r' || c == '\u2028'
+			|| c == '\u2029' || c == '\u0085';
+	} // isLineSeparator
+	// ========== ========== ========== ==========
+
+	/**
+	* Add the references of the words in the line <tt>rad</tt>,
+	* from <tt>start</tt> to <tt>end</tt>, in the same way as
+	* <tt>findRefs</tt>.
+	*/
+	static void addRefs( CharSequence rad, int start, int end, int radNo,
+						 Map<String,List<Integer>> map ) {
+		int pos = start;
+		while ( pos < end ) {
+			if ( isLetter( rad.charAt(pos) ) ) {
+				int first = pos;
+				while ( pos < end && isLetter( rad.charAt(pos) ) )
+					pos++;
+				String ord = rad.subSequence( first, pos ).toString();
+				add( map.computeIfAbsent( ord, k -> new PostingList() ), radNo );
+			}
+			pos++;
+		}
+	} // addRefs
+	// ========== ========== ========== ==========
+
+	/**
+	* Index the lines of <tt>text</tt> from <tt>start</tt>, which is
+	* the start of line <tt>radNo</tt>, up to <tt>end</tt>.
+	* @return the number of lines.
+	*/
+	private static int indexLines( CharSequence text, int start, int end, int radNo,
+								   Map<String,List<Integer>> map ) {
+		int first = radNo;
+		for ( ; start < end; radNo++ ) {
+			int next = nextLineStart( text, start ), stop = next;
+			while ( stop > start && isLineSeparator( text.charAt(stop - 1) ) )
+				stop--;
+			addRefs( text, start, stop, radNo, map );
+			start = next;
+		}
+		return radNo - first;
+	} // indexLines
+	// ========== ========== ========== ==========
+
+	/**
+	* Index the words of a file read through a memory mapping.
+	* For US-ASCII, ISO-8859-1 and UTF-8 the words and line
+	* separators are found directly in the mapped bytes, and only
+	* a word is decoded. Files in other charsets are decoded as a
+	* whole, and can be at most 1 GB. Lines are separated as by
+	* <tt>Scanner.nextLine</tt>.
+	*
+	* @param file the text file.
+	* @param cs the charset of the file.
+	* @param map the map that is filled in with the references.
+	* @return the number of lines in the file.
+	* @throws CharacterCodingException if the file is not valid
+	*         in the charset, where <tt>findRefs</tt> would just stop.
+	* @throws IOException if the file can not be read, has a
+	*         line longer than the mapped window (1 GB), or is
+	*         too large for its charset.
+	*/
+	public static int findRefsMapped( File file, Charset cs,
+									  Map<String,List<Integer>> map )
+									  throws IOException {
+		String name = cs.name();
+		int kind = name.equals("UTF-8")      ? ByteScanner.UTF8
+				 : name.equals("ISO-8859-1") ? ByteScanner.LATIN1
+				 : name.equals("US-ASCII")   ? ByteScanner.ASCII
+				 : -1;
+		ByteScanner scan = new ByteScanner( kind, map );
+		FileChannel ch = FileChannel.open( file.toPath(), StandardOpenOption.READ );
+		try {
+			long size = ch.size();
+			if ( kind < 0 && size > WINDOW )
+				// the windows are cut at '\n' bytes, which is only
+				// safe in charsets that extend ASCII byte for byte
+				throw new IOException( file + ": files in " + name
+									   + " can be at most " + WINDOW + " bytes" );
+			for ( long pos = 0; pos < size; ) {
+				int len = (int) Math.min( WINDOW, size - pos );
+				MappedByteBuffer buf = ch.map( FileChannel.MapMode.READ_ONLY, pos, len );
+				// Cut the window after its last line break, so no word,
+				// character or "\r\n" is split between two windows.
+				int cut = len;
+				if ( pos + len < size ) {
+					cut = len - 1;
+					while ( cut >= 0 && buf.get(cut) != '\n'
+							&& ( buf.get(cut) != '\r' || cut == len - 1 ) )
+						cut--;
+					if ( cut < 0 )
+						throw new IOException( file + ": line longer than "
+											   + WINDOW + " bytes at " + pos );
+					cut++;
+				}
+				if ( kind < 0 ) {
+					buf.limit( cut );
+					CharBuffer text = cs.newDecoder()
+						.onMalformedInput( CodingErrorAction.REPORT )
+						.onUnmappableCharacter( CodingErrorAction.REPORT )
+						.decode( buf );
+					scan.radNo += indexLines( text, 0, text.length(), scan.radNo, map );
+				}
+				else
+					scan.scan( buf, cut );
+				pos += cut;
+			}
+			scan.endWord();
+			return scan.lines();
+		}
+		finally {
+			ch.close();
+		}
+	} // findRefsMapped
+	// ========== ========== ========== ==========
+
+	// Finds the words and line breaks in bytes of ASCII, Latin-1
+	// or UTF-8. The word being read is decoded into chars.
+	private static class ByteScanner {
+		static final int ASCII = 0, LATIN1 = 1, UTF8 = 2;
+
+		final int kind;
+		final Map<String,List<Integer>> map;
+		final TestMapWithCounter<String,List<Integer>> tmap;
+		final TestMapWithCounter.CharsProbe<List<Integer>> probe =
+			new TestMapWithCounter.CharsProbe<List<Integer>>();
+		char[]     word   = new char[64];
+		CharBuffer chars  = CharBuffer.wrap( word );
+		int    length = 0;        // of the word, 0 if between words
+		int    radNo  = 1;        // the line that is read
+		boolean atLineStart = true;
+
+		ByteScanner( int kind, Map<String,List<Integer>> map ) {
+			this.kind = kind;
+			this.map  = map;
+			this.tmap = map instanceof TestMapWithCounter
+				? (TestMapWithCounter<String,List<Integer>>) map : null;
+		} // constructor ByteScanner
+
+		int lines() {
+			return atLineStart ? radNo - 1 : radNo;
+		} // lines
+
+		void scan( MappedByteBuffer buf, int end ) throws CharacterCodingException {
+			int i = 0;
+			while ( i < end ) {
+				int b = buf.get(i++) & 0xff;
+				if ( b == '\n' || b == '\r' ) {
+					if ( b == '\r' && i < end && buf.get(i) == '\n' )
+						i++;
+					newLine();
+				}
+				else if ( b < 0x80 || kind == LATIN1 ) {
+					if ( b == 0x85 )              // NEL in Latin-1
+						newLine();
+					else if ( LETTER[b] )
+						append( (char) b );
+					else
+						other();
+				}
+				else if ( kind == ASCII )
+					throw new MalformedInputException( 1 );
+				else {
+					int n = b >= 0xf0 ? 3 : b >= 0xe0 ? 2 : 1;
+					int c = b & (0x3f >> n);
+					if ( b < 0xc2 || b > 0xf4 || i + n > end )
+						throw new MalformedInputException( 1 );
+					for ( int k = 0; k < n; k++ ) {
+						int cont = buf.get(i++) & 0xff;
+						if ( (cont & 0xc0) != 0x80 )
+							throw new MalformedInputException( k + 1 );
+						c = (c << 6) | (cont & 0x3f);
+					}
+					if ( (n == 2 && (c < 0x800 || (c >= 0xd800 && c <= 0xdfff)))
+							|| (n == 3 && (c < 0x10000 || c > 0x10ffff)) )
+						throw new MalformedInputException( n + 1 );
+					if ( c == 0x85 || c == 0x2028 || c == 0x2029 )
+						newLine();
+					else if ( c <= 0xffff && isLetter( (char) c ) )
+						append( (char) c );
+					else
+						other();                 // a surrogate pair is no letter
+				}
+			}
+		} // scan
+
+		private void append( char c ) {
+			if ( length == word.length ) {
+				word  = Arrays.copyOf( word, 2 * length );
+				chars = CharBuffer.wrap( word );
+			}
+			word[length++] = c;
+			atLineStart = false;
+		} // append
+
+		// a char on the line that is not a letter
+		private void other() {
+			atLineStart = false;
+			endWord();
+		} // other
+
+		void endWord() {
+			if ( length > 0 ) {
+				// only a new word becomes a String
+				List<Integer> li = tmap != null
+					? tmap.lookup( probe.set( chars, 0, length ) )
+					: null;
+				if ( li == null && tmap == null )
+					li = map.computeIfAbsent( new String( word, 0, length ),
+											  k -> new PostingList() );
+				else if ( li == null ) {
+					// a second search, which finds the list if another
+					// thread has added the word meanwhile
+					List<Integer> added = new PostingList();
+					li = tmap.putIfAbsent( new String( word, 0, length ), added );
+					if ( li == null )
+						li = added;
+				}
+				add( li, radNo );
+				length = 0;
+			}
+		} // endWord
+
+		private void newLine() {
+			endWord();
+			radNo++;
+			atLineStart = true;
+		} // newLine
+	} // class ByteScanner
+	// ========== ========== ========== ==========
+
+	// Add a line number to a list, without boxing if we made the list
+	static void add( List<Integer> li, int radNo ) {
+		if ( li instanceof PostingList )
+			((PostingList) li).add( radNo );
+		else
+			li.add( radNo );
+	} // add
+	// ========== ========== ========== ==========
+
+	// Counts the lines in the chunks from, ..., to-1
+	private static class LineCounter extends RecursiveTask<int[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final CharSequence  text;
+		private final List<Integer> cuts;
+		private final int           from, to;
+
+		LineCounter( CharSequence text, List<Integer> cuts, int from, int to ) {
+			this.text = text;
+			this.cuts = cuts;
+			this.from = from;
+			this.to   = to;
+		} // constructor LineCounter
+
+		protected int[] compute() {
+			if ( to - from == 1 ) {
+				int start = cuts.get(from), end = cuts.get(to), count = 0;
+				for ( int pos = start; pos < end; pos = nextLineStart( text, pos ) )
+					count++;
+				return new int[] { count };
+			}
+			int mid = (from + to) >>> 1;
+			LineCounter left = new LineCounter( text, cuts, from, mid );
+			left.fork();
+			int[] r = new LineCounter( text, cuts, mid, to ).compute(),
+				  l = left.join(),
+				  both = Arrays.copyOf( l, l.length + r.length );
+			System.arraycopy( r, 0, both, l.length, r.length );
+			return both;
+		} // compute
+	} // class LineCounter
+	// ========== ========== ========== ==========
+
+	// Indexes the chunks from, ..., to-1 into a map in the
+	// order the words first occur
+	private static class Indexer
+				extends RecursiveTask<LinkedHashMap<String,List<Integer>>> {
+		private static final long serialVersionUID = 1L;
+
+		private final CharSequence  text;
+		private final List<Integer> cuts;
+		private final int[]         firstLine;
+		private final int           from, to;
+
+		Indexer( CharSequence text, List<Integer> cuts, int[] firstLine,
+				 int from, int to ) {
+			this.text      = text;
+			this.cuts      = cuts;
+			this.firstLine = firstLine;
+			this.from      = from;
+			this.to        = to;
+		} // constructor Indexer
+
+		protected LinkedHashMap<String,List<Integer>> compute() {
+			if ( to - from == 1 ) {
+				LinkedHashMap<String,List<Integer>> refs =
+					new LinkedHashMap<String,List<Integer>>();
+				indexLines( text, cuts.get(from), cuts.get(to), firstLine[from], refs );
+				return refs;
+			}
+			int mid = (from + to) >>> 1;
+			Indexer left = new Indexer( text, cuts, firstLine, from, mid );
+			left.fork();
+			LinkedHashMap<String,List<Integer>> r =
+				new Indexer( text, cuts, firstLine, mid, to ).compute();
+			LinkedHashMap<String,List<Integer>> l = left.join();
+			// the lines of the left chunks all come before the right ones
+			for ( Map.Entry<String,List<Integer>> me : r.entrySet() ) {
+				List<Integer> li = l.get( me.getKey() );
+				if ( li == null )
+					l.put( me.getKey(), me.getValue() );
+				else
+					li.addAll( me.getValue() );
+			}
+			return l;
+		} // compute
+	} // class Indexer
+	// ========== ========== ========== ==========
+} // class Referenslista
@@ -1,80 +1,260 @@
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 public class SLCWithGet <E extends Comparable<? super E>> extends LinkedCollection<E> implements CollectionWithGet<E> {
 
+    /**
+     * An entry about half way into the sorted list, so that a search for
+     * an element after it can start there instead of at the head.
+     */
     Entry middle;
 
+    /**
+     * The index of <tt>middle</tt>, which is kept close to size / 2. It is
+     * moved forward one step at a time as the list grows, and only if it has
+     * drifted more than size / 4 past the half is the list walked again.
+     */
+    private int midIndex;
+
+    private int modCount;
+
     public SLCWithGet() {
         super();
         middle = null;
     }
 
+    @Override
+    public void clear() {
+        super.clear();
+        middle = null;
+        midIndex = 0;
+        modCount++;
+    }
+
     /**
-     * Inserts a given element to the linked list.
-     * @param e The element to insert.
+     * The index of <tt>middle</tt>, where a search starts, or -1 if the
+     * list is empty.
+     */
+    int middleIndex() {
+        return middle == null ? -1 : midIndex;
+    }
+
+    /**
+     * Moves <tt>middle</tt> towards index size / 2 after a change. Going
+     * forward is done one step at a time, going back needs a walk from the
+     * head, which is only done when the drift is more than size / 4, so that
+     * it is paid for by the size / 4 changes that caused it.
      */
-    private void insert(E e) {
-        if (head == null) {
-            super.add(e);
+    private void adjustMiddle() {
+        if (size == 0) {
+            middle = null;
+            midIndex = 0;
+            return;
+        }
+        int half = size / 2;
+        if (middle == null || midIndex - half > size / 4) {
             middle = head;
-        } else {
-            Entry temp;
+            midIndex = 0;
+        }
+        while (midIndex < half) {
+            middle = middle.next;
+            midIndex++;
+        }
+    }
+
+    /**
+     * Inserts a given element to the sorted linked list, unless an equal
+     * element is in it. The search for its place starts at <tt>middle</tt>
+     * if the element is after it, and otherwise at the head.
+     * @param e The element to insert.
+     * @return the equal element in the list, or null if e was inserted.
+     */
+    private E insert(E e) {
+        Entry prev = null;      // e goes after prev, or first if null
+        int index = 0;          // the index e will get
+        if (middle != null) {
             int cmp = e.compareTo(middle.element);
-            if (cmp < 0) {
-                temp = head;
-            } else if (cmp > 0) {
-                temp = middle;
-            } else {
-                return;
+            if (cmp == 0)
+                return middle.element;
+            else if (cmp > 0) {
+                prev = middle;
+                index = midIndex + 1;
             }
-            while (temp.next != null && e.compareTo(temp.element) > 0)
-                temp = temp.next;
-            temp.next = new Entry(e, temp.next);
         }
-
-        int half = super.size() / 2;
-        Entry newMiddle = head;
-        for (int i = 0; i < half; i++) {
-            newMiddle = newMiddle.next;
+        Entry temp = prev == null ? head : prev.next;
+        while (temp != null) {
+            int cmp = e.compareTo(temp.element);
+            if (cmp < 0)
+                break;
+            else if (cmp == 0)
+                return temp.element;
+            prev = temp;
+            temp = temp.next;
+            index++;
         }
-        middle = newMiddle;
+        if (prev == null)
+            head = new Entry(e, head);
+        else
+            prev.next = new Entry(e, temp);
+        size++;
+        modCount++;
+        if (middle != null && index <= midIndex)
+            midIndex++;
+        adjustMiddle();
+        return null;
+    }
+
+    /**
+     * Unlinks <tt>x</tt>, that is after <tt>prev</tt> or first if it is null,
+     * and has the given index.
+     */
+    private void unlink(Entry prev, Entry x, int index) {
+        if (prev == null)
+            head = x.next;
+        else
+            prev.next = x.next;
+        size--;
+        modCount++;
+        if (x == middle) {
+            if (x.next != null)
+                middle = x.next;        // the same index
+            else {
+                middle = prev;
+                midIndex--;
+            }
+        } else if (index < midIndex)
+            midIndex--;
+        adjustMiddle();
     }
 
     /**
      * Tries to add an element to the linked list.
      * @param e The element to add.
-     * @return true if the element was added to the linked list.
+     * @return true if the element was added to the linked list,
+     *         false if an equal element is in it.
      */
     @Override
     public boolean add(E e) {
         if (e == null)
             throw new NullPointerException("Can not add null as element");
-        insert(e);
-        return true;
+        return insert(e) == null;
+    }
+
+    /**
+     * Adds the element as <tt>add</tt> does, in the same walk that would
+     * find an equal element.
+     * @param e The element to add.
+     * @return The equal element in the list, or null if e was added.
+     */
+    @Override
+    public E addIfAbsent(E e) {
+        if (e == null)
+            throw new NullPointerException("Can not add null as element");
+        return insert(e);
     }
 
     /**
      * Tries to get an element from the linked list matching the dummy element.
+     * The search starts at <tt>middle</tt> if the element is not before it,
+     * and stops as soon as it has passed the place of the element.
      * @param e The dummy element to compare to.
      * @return The matching element from the linked list.
      */
     @Override
     public E get(E e) {
-        /*Entry entry = super.head;
+        Entry entry = head;
+        if (middle != null) {
+            int cmp = e.compareTo(middle.element);
+            if (cmp == 0)
+                return middle.element;
+            else if (cmp > 0)
+                entry = middle.next;
+        }
         while (entry != null) {
-            if (entry.element.compareTo(e) == 0)
+            int cmp = e.compareTo(entry.element);
+            if (cmp == 0)
                 return entry.element;
+            else if (cmp < 0)
+                return null;
             entry = entry.next;
         }
-        return null;*/
+        return null;
+    }
 
-        Iterator<E> iterator = super.iterator();
-        while (iterator.hasNext()) {
-            E rv = iterator.next();
-            if (e.compareTo(rv) == 0)
-                return rv;
+    /**
+     * Removes the element equal to the argument, searched for as in
+     * <tt>get</tt> instead of by the whole list as in
+     * <tt>AbstractCollection</tt>.
+     * @param o The element to remove.
+     * @return true if an element was removed.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        E e = (E) o;
+        Entry prev = null;
+        int index = 0;
+        if (middle != null) {
+            int cmp = e.compareTo(middle.element);
+            if (cmp > 0) {
+                prev = middle;
+                index = midIndex + 1;
+            }
+        }
+        for (Entry entry = prev == null ? head : prev.next; entry != null;
+             prev = entry, entry = entry.next, index++) {
+            int cmp = e.compareTo(entry.element);
+            if (cmp == 0) {
+                unlink(prev, entry, index);
+                return true;
+            } else if (cmp < 0)
+                return false;
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new SLCIterator();
+    }
+
+    /**
+     * Iterates in order, and remembers the entry before the last one given,
+     * so that remove is O(1) and keeps size and middle right.
+     */
+    private class SLCIterator implements Iterator<E> {
+        private Entry next = head, last = null, beforeLast = null;
+        private int index = -1;             // of last
+        private int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public E next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (next == null)
+                throw new NoSuchElementException();
+            if (last != null)
+                beforeLast = last;
+            last = next;
+            next = next.next;
+            index++;
+            return last.element;
+        }
+
+        public void remove() {
+            if (last == null)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            unlink(beforeLast, last, index);
+            expectedModCount = modCount;
+            last = null;
+            index--;
         }
-        return null;
     }
 
 }
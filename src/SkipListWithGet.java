@@ -0,0 +1,330 @@
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  A lock-free skip list ordered by the method compareTo for
+ *  the elements, that may be used by many threads at the same
+ *  time without any lock, as the <tt>LockFreeSkipList</tt> of
+ *  Herlihy and Shavit. Each next reference carries a mark, and
+ *  an entry is removed by first marking its references from the
+ *  top level down, the entry is in the collection as long as its
+ *  reference on the bottom level is unmarked. The marked entries
+ *  are unlinked by the searches that pass them.
+ *
+ *  <tt>get</tt> and <tt>contains</tt> never write anything and never
+ *  retry. <tt>add</tt> and <tt>remove</tt> retry when another thread
+ *  has changed the list between their search and their
+ *  compareAndSet. The iterator is weakly consistent, it gives the
+ *  elements in order, never throws
+ *  <tt>ConcurrentModificationException</tt> and may or may not
+ *  show changes made after it was created.
+ *  Two elements for which compareTo gives 0 are not allowed
+ *  and <tt>null</tt> can not be an element.
+ */
+public class SkipListWithGet<E extends Comparable<? super E>>
+						extends AbstractCollection<E>
+						implements CollectionWithGet<E> {
+
+	// an entry is on the levels 0..topLevel with probability 2^-(topLevel+1)
+	private static final int MAX_LEVEL = 32;
+
+	private final Node<E>   head = new Node<E>( null, MAX_LEVEL - 1 );
+	private final LongAdder size = new LongAdder();
+
+	// ========== ========== ========== ==========
+	private static final class Node<E> {
+		final E element;        // null in the head
+		final AtomicMarkableReference<Node<E>>[] next;
+
+		@SuppressWarnings({"rawtypes","unchecked"})
+		Node( E element, int topLevel ) {
+			this.element = element;
+			next = (AtomicMarkableReference<Node<E>>[])
+						new AtomicMarkableReference[topLevel + 1];
+			for ( int level = 0; level <= topLevel; level++ )
+				next[level] = new AtomicMarkableReference<Node<E>>( null, false );
+		} // constructor Node
+
+		int topLevel() {
+			return next.length - 1;
+		} // topLevel
+	} // class Node
+
+	// an array for the nodes before or after a place on each level
+	@SuppressWarnings({"rawtypes","unchecked"})
+	private static <E> Node<E>[] newNodes() {
+		return (Node<E>[]) new Node[MAX_LEVEL];
+	} // newNodes
+	// ========== ========== ========== ==========
+
+	/**
+	*  The constructor creates the empty list
+	*/
+	public SkipListWithGet() {
+		super();
+	}  // constructor SkipListWithGet
+	// ========== ========== ========== ==========
+	/**
+	* The number of elements, which is only exact when
+	* no other thread is changing the list.
+	*/
+	public int size() {
+		return (int) Math.min( Integer.MAX_VALUE, Math.max( 0, size.sum() ) );
+	}  // size
+
+	public boolean isEmpty() {
+		return !iterator().hasNext();
+	}  // isEmpty
+
+	private static int randomLevel() {
+		int r = ThreadLocalRandom.current().nextInt();
+		return Integer.numberOfTrailingZeros( r | (1 << (MAX_LEVEL - 1)) );
+	}  // randomLevel
+	// ========== ========== ========== ==========
+
+	// Fill in preds and succs on each level around the place of e,
+	// so that preds[level].element < e <= succs[level].element, where
+	// null as succ is after everything. Marked entries on the way
+	// are unlinked, and the search starts over if that fails.
+	// Returns true if succs[0] is equal to e.
+	private boolean find( E e, Node<E>[] preds, Node<E>[] succs ) {
+		boolean[] marked = { false };
+		retry:
+		while ( true ) {
+			Node<E> pred = head, curr = null;
+			int comp = 1;
+			for ( int level = MAX_LEVEL - 1; level >= 0; level-- ) {
+				curr = pred.next[level].getReference();
+				comp = 1;
+				while ( curr != null ) {
+					Node<E> succ = curr.next[level].get( marked );
+					while ( marked[0] ) {
+						if ( !pred.next[level].compareAndSet( curr, succ, false, false ) )
+							continue retry;
+						curr = succ;
+						if ( curr == null )
+							break;
+						succ = curr.next[level].get( marked );
+					}
+					if ( curr == null )
+						break;
+					comp = e.compareTo( curr.element );
+					if ( comp <= 0 )
+						break;
+					pred = curr;
+					curr = succ;
+				}
+				preds[level] = pred;
+				succs[level] = curr;
+			}
+			return curr != null && comp == 0;
+		}
+	}  // find
+	// ========== ========== ========== ==========
+	/**
+	*  Find the first occurence of an element
+	*  in the collection that is equal to the argument
+	*  <tt>e</tt> with respect to its natural order.
+	*  I.e. <tt>e.compateTo(element)</tt> is 0.
+	*  Nothing is changed, marked entries are just passed.
+	*
+	*  @param e The dummy element to compare to.
+	*  @return  An element  <tt>e'</tt> in the collection
+	*           satisfying <tt>e.compareTo(e') == 0</tt>.
+	*           If no element is found, <tt>null</tt> is returned
+	*/
+	public E get( E e ) {
+		boolean[] marked = { false };
+		Node<E> pred = head;
+		for ( int level = MAX_LEVEL - 1; level >= 0; level-- ) {
+			Node<E> curr = pred.next[level].getReference();
+			while ( curr != null ) {
+				Node<E> succ = curr.next[level].get( marked );
+				while ( marked[0] ) {
+					curr = succ;
+					if ( curr == null )
+						break;
+					succ = curr.next[level].get( marked );
+				}
+				if ( curr == null )
+					break;
+				int comp = e.compareTo( curr.element );
+				if ( comp == 0 )
+					// unmarked on this level, and the bottom level
+					// is the last to be marked by a remove
+					return curr.element;
+				else if ( comp < 0 )
+					break;
+				pred = curr;
+				curr = succ;
+			}
+		}
+		return null;
+	}  // get
+
+	public boolean contains( E e ) {
+		return get( e ) != null;
+	}  // contains
+
+	@SuppressWarnings("unchecked")
+	public boolean contains( Object o ) {
+		return contains( (E) o );
+	}  // contains
+	// ========== ========== ========== ==========
+	/**
+	* Add the element, unless an equal element is in the list.
+	* The element is in the list as soon as it is linked on the
+	* bottom level, the higher levels are linked after that.
+	* @param elem the element to be included
+	* @return true if the element was added.
+	*/
+	public boolean add( E elem ) {
+		return addIfAbsent( elem ) == null;
+	} // add
+
+	/**
+	* Add the element as <tt>add</tt> does. The search that finds
+	* the place of the element also finds an equal element.
+	* @param elem the element to be included
+	* @return the equal element in the list, or <tt>null</tt> if
+	*         <tt>elem</tt> was added.
+	*/
+	public E addIfAbsent( E elem ) {
+		if ( elem == null )
+			throw new NullPointerException();
+		Node<E>[] preds = newNodes(), succs = newNodes();
+		Node<E> node = null;
+		while ( true ) {
+			if ( find( elem, preds, succs ) )
+				return succs[0].element;
+			if ( node == null )
+				node = new Node<E>( elem, randomLevel() );
+			for ( int level = 0; level <= node.topLevel(); level++ )
+				node.next[level].set( succs[level], false );
+			if ( preds[0].next[0].compareAndSet( succs[0], node, false, false ) )
+				break;
+		}
+		size.increment();
+		for ( int level = 1; level <= node.topLevel(); level++ ) {
+			while ( true ) {
+				Node<E> succ = succs[level];
+				Node<E> old  = node.next[level].getReference();
+				// stop if a remove has started to mark the node
+				if ( old != succ
+					 && !node.next[level].compareAndSet( old, succ, false, false ) )
+					return null;
+				if ( node.next[level].isMarked() )
+					return null;
+				if ( preds[level].next[level].compareAndSet( succ, node, false, false ) )
+					break;
+				if ( !find( elem, preds, succs ) || succs[0] != node )
+					return null;   // already removed again
+			}
+		}
+		return null;
+	} // addIfAbsent
+	// ========== ========== ========== ==========
+	/**
+	* Remove the element equal to the argument, if any.
+	* The entry is marked from its top level down, the thread that
+	* marks the bottom level has removed it.
+	*
+	* @param elem any element with the searched key
+	* @return true if an element has disapeared from the list,
+	*         false otherwise
+	*/
+	public boolean remove( E elem ) {
+		Node<E>[] preds = newNodes(), succs = newNodes();
+		if ( !find( elem, preds, succs ) )
+			return false;
+		Node<E> victim = succs[0];
+		boolean[] marked = { false };
+		for ( int level = victim.topLevel(); level >= 1; level-- ) {
+			Node<E> succ = victim.next[level].get( marked );
+			while ( !marked[0] ) {
+				victim.next[level].compareAndSet( succ, succ, false, true );
+				succ = victim.next[level].get( marked );
+			}
+		}
+		Node<E> succ = victim.next[0].get( marked );
+		while ( true ) {
+			boolean iMarkedIt = victim.next[0].compareAndSet( succ, succ, false, true );
+			succ = victim.next[0].get( marked );
+			if ( iMarkedIt ) {
+				size.decrement();
+				find( elem, preds, succs );   // unlink it
+				return true;
+			}
+			else if ( marked[0] )
+				return false;   // another thread removed it
+		}
+	} // remove
+
+	@SuppressWarnings("unchecked")
+	public boolean remove( Object o ) {
+		return remove( (E) o );
+	}  // remove
+
+	/**
+	* Remove the elements one by one, so elements added
+	* by other threads meanwhile may remain.
+	*/
+	public void clear() {
+		for ( Node<E> x = head.next[0].getReference(); x != null;
+			  x = x.next[0].getReference() )
+			remove( x.element );
+	}  // clear
+	// ========== ========== ========== ==========
+	/**
+	* Create a weakly consistent iterator for the elements in order.
+	* @return the created iterator.
+	*/
+	public Iterator<E> iterator() {
+		return new SkipListIterator();
+	}  //  iterator
+
+	private class SkipListIterator implements Iterator<E> {
+		private Node<E> next;
+		private E       lastNext = null;
+
+		private SkipListIterator() {
+			next = head;
+			advance();
+		} // constructor SkipListIterator
+
+		// go to the next entry that is not removed
+		private void advance() {
+			boolean[] marked = { false };
+			Node<E> x = next.next[0].getReference();
+			while ( x != null ) {
+				Node<E> succ = x.next[0].get( marked );
+				if ( !marked[0] )
+					break;
+				x = succ;
+			}
+			next = x;
+		} // advance
+
+		public boolean hasNext() {
+			return next != null;
+		} // hasNext
+
+		public E next() {
+			if ( next == null )
+				throw new NoSuchElementException();
+			lastNext = next.element;
+			advance();
+			return lastNext;
+		} // next
+
+		public void remove() {
+			if ( lastNext == null )
+				throw new IllegalStateException();
+			SkipListWithGet.this.remove( lastNext );
+			lastNext = null;
+		} // remove
+	}  //  class SkipListIterator
+	// ========== ========== ========== ==========
+}  //  class SkipListWithGet
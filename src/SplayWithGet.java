@@ -9,6 +9,7 @@ public class SplayWithGet<E extends Comparable<? super E>> extends BinarySearchT
       A   B                  B   C
 */
     private void zig(Entry x) {
+        rotations++;
         Entry y = x.left;
         E temp = x.element;
         x.element = y.element;
@@ -32,6 +33,7 @@ public class SplayWithGet<E extends Comparable<? super E>> extends BinarySearchT
               B   C          A   B
     */
     private void zag(Entry x) {
+        rotations++;
         Entry y = x.right;
         E temp = x.element;
         x.element = y.element;
@@ -57,6 +59,7 @@ public class SplayWithGet<E extends Comparable<? super E>> extends BinarySearchT
             B   C
     */
     private void zigzag(Entry x) {
+        rotations += 2;
         Entry y = x.left,
                 z = x.left.right;
         E e = x.element;
@@ -84,6 +87,7 @@ public class SplayWithGet<E extends Comparable<? super E>> extends BinarySearchT
              B   C
      */
     private void zagzig(Entry x) {
+        rotations += 2;
         Entry y = x.right,
                 z = x.right.left;
         E e = x.element;
@@ -112,6 +116,7 @@ public class SplayWithGet<E extends Comparable<? super E>> extends BinarySearchT
          D   C                 B   A
     */
     private void zigzig(Entry x) {
+        rotations += 2;
         Entry y = x.left,
                 z = x.left.left;
         E e = x.element;
@@ -143,6 +148,7 @@ public class SplayWithGet<E extends Comparable<? super E>> extends BinarySearchT
           C   D       A   B
      */
     private void zagzag(Entry x) {
+        rotations += 2;
         Entry y = x.right,
                 z = x.right.right;
         E e = x.element;
@@ -164,23 +170,70 @@ public class SplayWithGet<E extends Comparable<? super E>> extends BinarySearchT
         y.left = z;
     }
 
+    /**
+     * Entries at this depth or higher up are found without splaying, 0 splays all.
+     */
+    private final int splayDepth;
+
+    /**
+     * True to semi-splay, i.e. in the zig-zig case only rotate the parent up
+     * and go on from the parent, which about halves the depth of the path
+     * instead of moving the entry to the root.
+     */
+    private final boolean semiSplay;
+
+    /**
+     * The number of splays made, read by <tt>CollectionStats</tt>.
+     */
+    protected long splays;
+
     public SplayWithGet() {
+        this(0, false);
+    }
+
+    /**
+     * Creates a splay tree that only restructures on deep accesses. An access
+     * to an entry at most <tt>splayDepth</tt> steps below the root leaves the
+     * tree as it is, so after e.g. a sorted insert sequence the first accesses
+     * still pay for the long path once, but accesses near the top never
+     * rotate. With <tt>semiSplay</tt> a deep access moves the entry only about
+     * half way up, which bounds the work per access to one pass of the path.
+     * @param splayDepth the depth an entry must be below to be splayed, 0 for always.
+     * @param semiSplay  true to semi-splay instead of splaying to the root.
+     */
+    public SplayWithGet(int splayDepth, boolean semiSplay) {
         super();
+        if (splayDepth < 0)
+            throw new IllegalArgumentException("splayDepth < 0: " + splayDepth);
+        this.splayDepth = splayDepth;
+        this.semiSplay = semiSplay;
     }
 
     /**
      * Splays a selected part of the tree. Making the entry node reach the targeted level.
+     * The rotations move elements between the entries, so the entry that holds the
+     * element of <tt>toMove</tt> afterwards is returned, the root unless semi-splaying.
+     * The depth of <tt>toMove</tt> is only used for the JFR event of the splay.
      */
-    private void splay(final Entry toMove) {
-        Entry entry, next;
-        entry = toMove;
+    private Entry splay(final Entry toMove, int depth) {
+        TreeEvents.Splay event = new TreeEvents.Splay();
+        event.begin();
+        long rotationsBefore = rotations;
+        Entry entry, next, holder;
+        entry = holder = toMove;
+        splays++;
         while (entry != null && entry.parent != null) {
             if (entry.parent.left == entry) {
                 if (entry.parent.parent != null) {
                     next = entry.parent.parent;
-                    if (next.left == entry.parent)
+                    if (next.left == entry.parent) {
+                        if (semiSplay) {
+                            zig(next);      // entry stays, its parent goes up
+                            entry = next;
+                            continue;
+                        }
                         zigzig(next);
-                    else
+                    } else
                         zagzig(next);
                 } else {
                     next = entry.parent;
@@ -189,22 +242,36 @@ public class SplayWithGet<E extends Comparable<? super E>> extends BinarySearchT
             } else {
                 if (entry.parent.parent != null) {
                     next = entry.parent.parent;
-                    if (next.right == entry.parent)
+                    if (next.right == entry.parent) {
+                        if (semiSplay) {
+                            zag(next);
+                            entry = next;
+                            continue;
+                        }
                         zagzag(next);
-                    else
+                    } else
                         zigzag(next);
                 } else {
                     next = entry.parent;
                     zag(next);
                 }
             }
+            if (holder == entry)
+                holder = next;      // the element of entry is now in next
             entry = next;
         }
+        if (event.shouldCommit()) {
+            event.tree = getClass().getSimpleName();
+            event.depth = depth;
+            event.rotations = (int) (rotations - rotationsBefore);
+            event.commit();
+        }
+        return holder;
     }
 
     /**
      * Tries to find the given element from the given entry and splaying the tree in the process.
-     * It will save the last reached entry in the private variable lastFound.
+     * Entries deeper than <tt>splayDepth</tt> are splayed, or semi-splayed, afterwards.
      * @param elem The dummy element to compare to.
      * @param t    The root which to search from.
      * @return The matching tree element.
@@ -213,8 +280,11 @@ public class SplayWithGet<E extends Comparable<? super E>> extends BinarySearchT
     protected Entry find(E elem, Entry t) {
         if (t == null)
             return null;
+        TreeEvents.LongFind event = new TreeEvents.LongFind();
+        event.begin();
         boolean foundIt = false;
         Entry entry = t;
+        int depth = 0;
         while (true) {
             int jfr = elem.compareTo(entry.element);
             if (jfr < 0) {
@@ -229,9 +299,17 @@ public class SplayWithGet<E extends Comparable<? super E>> extends BinarySearchT
                 foundIt = true;
                 break;
             }
+            depth++;
         }
-        splay(entry);
-        return foundIt ? root : null;
+        if (event.shouldCommit() && TreeEvents.isLong(depth + 1, size)) {
+            event.tree = getClass().getSimpleName();
+            event.depth = depth + 1;
+            event.size = size;
+            event.commit();
+        }
+        if (depth > splayDepth)
+            entry = splay(entry, depth);
+        return foundIt ? entry : null;
     }
 
     /**
@@ -246,4 +324,65 @@ public class SplayWithGet<E extends Comparable<? super E>> extends BinarySearchT
         Entry entry = this.find(elem, root);
         return entry == null ? null : entry.element;
     }
+
+    /**
+     * Adds the element unless an equal one is in the tree, in one walk down
+     * that either finds it or the empty place of the new entry. The entry
+     * found, or the last one compared to, is splayed as in <tt>find</tt>,
+     * and a new entry is then linked in without a splay, as by <tt>get</tt>
+     * followed by <tt>add</tt>.
+     * @param elem The element to add.
+     * @return The equal element in the tree, or null if elem was added.
+     */
+    @Override
+    public E addIfAbsent(E elem) {
+        if (elem == null)
+            throw new NullPointerException("Can not add null as element");
+        if (root == null) {
+            root = new Entry(elem, null);
+            size++;
+            return null;
+        }
+        Entry entry = root;
+        int depth = 0;
+        int jfr;
+        while (true) {
+            jfr = elem.compareTo(entry.element);
+            if (jfr < 0 && entry.left != null)
+                entry = entry.left;
+            else if (jfr > 0 && entry.right != null)
+                entry = entry.right;
+            else
+                break;
+            depth++;
+        }
+        if (depth > splayDepth)
+            entry = splay(entry, depth);
+        if (jfr == 0)
+            return entry.element;
+        // The splay keeps the inorder, so the empty place of elem is
+        // still next to the element in entry, at the end of the
+        // subtree on that side.
+        if (jfr < 0) {
+            if (entry.left == null)
+                entry.left = new Entry(elem, entry);
+            else {
+                Entry t = entry.left;
+                while (t.right != null)
+                    t = t.right;
+                t.right = new Entry(elem, t);
+            }
+        } else {
+            if (entry.right == null)
+                entry.right = new Entry(elem, entry);
+            else {
+                Entry t = entry.right;
+                while (t.left != null)
+                    t = t.left;
+                t.left = new Entry(elem, t);
+            }
+        }
+        size++;
+        return null;
+    }
 }
\ No newline at end of file
@@ -35,7 +35,8 @@ public class TestFrame extends JFrame implements ActionListener {
 		containerSLC   = new SLCWithGet<TestMapWithCounter.TestMapEntry<String, List<Integer>>>(),
 		containerSplay = new SplayTreeWithGet<TestMapWithCounter.TestMapEntry<String, List<Integer>>>(),
 		containerBST   = new BSTwithGet<TestMapWithCounter.TestMapEntry<String, List<Integer>>>(),
-		containerAVL   = new AVLwithGet<TestMapWithCounter.TestMapEntry<String, List<Integer>>>();
+		containerAVL   = new AVLwithGet<TestMapWithCounter.TestMapEntry<String, List<Integer>>>(),
+		containerRB    = new RBTreeWithGet<TestMapWithCounter.TestMapEntry<String, List<Integer>>>();
 
 
 /*  ########## ########## ########## ########## ##########  */  
@@ -46,11 +47,12 @@ public class TestFrame extends JFrame implements ActionListener {
 	TestMapWithCounter<String,List<Integer>>
 /*  ########## ########## ########## ########## ##########  */  
 /* ###### TAG BORT kommentarna på de 2 följande raderna när ni skrivit era samlingar */
-		slcMap = new TestMapWithCounter<String,List<Integer>>(containerSLC),
-		splayMap = new TestMapWithCounter<String,List<Integer>>(containerSplay),
+		slcMap = new TestMapWithCounter<String,List<Integer>>(containerSLC, true),
+		splayMap = new TestMapWithCounter<String,List<Integer>>(containerSplay, true),
 	
-		bstMap = new TestMapWithCounter<String,List<Integer>>(containerBST),
-		avlMap = new TestMapWithCounter<String,List<Integer>>(containerAVL);
+		bstMap = new TestMapWithCounter<String,List<Integer>>(containerBST, true),
+		avlMap = new TestMapWithCounter<String,List<Integer>>(containerAVL, true),
+		rbMap  = new TestMapWithCounter<String,List<Integer>>(containerRB, true);
 
 	TestMapWithCounter<String,List<Integer>>  map =  bstMap;
 
@@ -58,6 +60,7 @@ public class TestFrame extends JFrame implements ActionListener {
 	JRadioButton avl   = new JRadioButton("AVL",false);
 	JRadioButton list  = new JRadioButton("SLC",false); 
 	JRadioButton splay = new JRadioButton("Splay",false);
+	JRadioButton rb    = new JRadioButton("RB",false);
   
 
 	JButton test     = new JButton(" Choose file to test");
@@ -79,6 +82,8 @@ public class TestFrame extends JFrame implements ActionListener {
 				map = bstMap;
 			else if ( e.getSource() == avl )
 				map = avlMap;
+			else if ( e.getSource() == rb )
+				map = rbMap;
 			else
 				map = splayMap;
 		}
@@ -91,23 +96,26 @@ public class TestFrame extends JFrame implements ActionListener {
 		nf.setMaximumFractionDigits(2);
 		setDefaultCloseOperation( EXIT_ON_CLOSE );
 
-		// Create a panel with a multiple-exclusion scope for a set of 4 buttons.
+		// Create a panel with a multiple-exclusion scope for a set of 5 buttons.
 		ButtonGroup radiogrupp = new ButtonGroup();
 		radiogrupp.add(bst);
 		radiogrupp.add(avl);
 		radiogrupp.add(list);
 		radiogrupp.add(splay);
+		radiogrupp.add(rb);
 		RadioLyssnare rl = new RadioLyssnare();
 		list.addActionListener(rl);
 		bst.addActionListener(rl);
 		avl.addActionListener(rl);
 		splay.addActionListener(rl);
-		JPanel radioknapparna = new JPanel(new GridLayout(1,4));
+		rb.addActionListener(rl);
+		JPanel radioknapparna = new JPanel(new GridLayout(1,5));
 		radioknapparna.setPreferredSize(new Dimension(450,50)); // min size on height
 		radioknapparna.add(bst);
 		radioknapparna.add(avl);
 		radioknapparna.add(list);
 		radioknapparna.add(splay);
+		radioknapparna.add(rb);
 		
 		JPanel knapparna  = new JPanel(new GridLayout(2,1)); // panel for choose file & compute buttons
 		JPanel resultat   = new JPanel(new GridLayout(3,2)); // panel for rsults
@@ -204,8 +212,18 @@ public class TestFrame extends JFrame implements ActionListener {
 	*
 	*  @param text Texten skall ges i form av en  </tt Scanner>.
 	*  @param map En  </tt Map> som fylls i av metoden.
+	*  @return Antalet lästa rader.
 	*/
-	public static void findRefs( Scanner text, Map<String, List<Integer>> map) {
+	public static int findRefs( Scanner text, Map<String, List<Integer>> map) {
+		// Med en TestMapWithCounter slås orden upp utan substring,
+		// en String skapas bara för nya ord. De läggs till med
+		// putIfAbsent i en andra sökning, som ger den lista som en
+		// annan tråd kan ha hunnit lägga till.
+		TestMapWithCounter<String,List<Integer>> tmap = null;
+		if ( map instanceof TestMapWithCounter )
+			tmap = (TestMapWithCounter<String,List<Integer>>) map;
+		TestMapWithCounter.CharsProbe<List<Integer>> probe =
+			new TestMapWithCounter.CharsProbe<List<Integer>>();
 		int radNo = 0;
 		while ( text.hasNextLine()) {
 			String rad = text.nextLine();
@@ -217,19 +235,27 @@ public class TestFrame extends JFrame implements ActionListener {
 					int start = pos;
 					while (pos < rad.length() && isLetter(rad.charAt(pos)))
 						pos++;
-					String ord = rad.substring(start,pos);
-					List<Integer> li = map.get(ord);
-					if ( li == null ) {
-						li = new ArrayList<Integer>();
-						li.add(radNo);
-						map.put(ord,li);
+					List<Integer> li = tmap != null
+						? tmap.lookup( probe.set(rad,start,pos) )
+						: null;
+					if ( li == null && tmap == null )
+						li = map.computeIfAbsent( rad.substring(start,pos),
+												  k -> new PostingList() );
+					else if ( li == null ) {
+						List<Integer> added = new PostingList();
+						li = tmap.putIfAbsent( rad.substring(start,pos), added );
+						if ( li == null )
+							li = added;
 					}
+					if ( li instanceof PostingList )
+						((PostingList) li).add(radNo);   // utan boxing
 					else
 						li.add(radNo);
 				}
 				pos++;
 			}
 		}
+		return radNo;
 	}
 	// ========== ========== ========== ==========
 
@@ -1,13 +1,19 @@
 
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.concurrent.atomic.LongAdder;
 /**
  *  This is a <tt>Map</tt> that uses the <tt>CollectionWithGet</tt>
  *  given to the only constructor as a container for the 
  *  elements of type <tt>TestMapEntry</tt>.
  *   
  *  The method <tt>compareTo<tt> for  <tt>TestMapEntry</tt>
- *  compare the keys in the elements and increment a counter
- *  for the number of comparisions.
+ *  compare the keys in the elements. A map that counts its
+ *  comparisions uses <tt>CountedEntry</tt>'s instead, which
+ *  also increment the counter of the map, so maps counted at
+ *  the same time, also in other threads, do not disturb each
+ *  other. A map that does not count has no counter at all.
  *  Two element for which method compareTo
  *  gives 0 are not allowed.
  * 
@@ -22,29 +28,58 @@ public class TestMapWithCounter<K extends Comparable<? super K>,V>
 	// The set of the elements of type TestMapEntry
 	private CollectionWithGet<TestMapEntry<K,V>> container;
 
+	// The view returned by entrySet, made the first time
+	private Set<Map.Entry<K,V>> entrySet;
+
+	// The number of comparisions and of operations on the map,
+	// null if they are not counted
+	private final LongAdder counter, operations;
+
 	/**
-	* The constructor of  the map. 
+	* The constructor of  the map, which does not count its
+	* comparisions.
 	* @param container The constructur must be provided an empty  
 	*                  <tt>CollectionWithGet<tt>,
 	*                  which the map vill use to store its key-value pairs.
 	*/
 	public TestMapWithCounter( CollectionWithGet<TestMapEntry<K,V>> container) {
+		this( container, false );
+	} // constructor TestMapWithCounter
+
+	/**
+	* The constructor of  the map. 
+	* @param container The constructur must be provided an empty  
+	*                  <tt>CollectionWithGet<tt>,
+	*                  which the map vill use to store its key-value pairs.
+	* @param counting  true if the comparisions should be counted,
+	*                  otherwise the entries are plain <tt>TestMapEntry</tt>'s.
+	*/
+	public TestMapWithCounter( CollectionWithGet<TestMapEntry<K,V>> container,
+							   boolean counting ) {
 		super();
 		this.container = container;
+		this.counter    = counting ? new LongAdder() : null;
+		this.operations = counting ? new LongAdder() : null;
 	} // constructor TestMapWithCounter
 
+	// All entries of the map, also those only used to search
+	// with, are made here, one for each operation but lookup,
+	// so the operations are counted here.
+	private TestMapEntry<K,V> newEntry( K key, V value ) {
+		if ( counter == null )
+			return new TestMapEntry<K,V>( key, value );
+		operations.increment();
+		return new CountedEntry<K,V>( key, value, counter );
+	} // newEntry
+
 
 	/**
-	*  The class the map will use for its key-value entries.
-	*  As a side-effect the  <tt>counter</tt> increases with
-	*  one each time the <tt>compareTo</tt>-method is used.
+	*  The class the map will use for its key-value entries,
+	*  when it does not count the comparisions.
 	*/
 	public static class TestMapEntry<EK extends Comparable<? super EK>,EV> 
 						implements Map.Entry<EK,EV>, Comparable<TestMapEntry<EK,EV>>  {
 
-		// Counter for number of comparisions of TestMapEntry
-		public  static int  counter;
-
 		EK key; 
 		EV value;
 
@@ -79,11 +114,96 @@ public class TestMapWithCounter<K extends Comparable<? super K>,V>
 		}
 
 		public int compareTo( TestMapEntry<EK,EV> e ) {
-			counter = counter + 1;
 			return key.compareTo( e.key );
 		}
 	} //  class TestMapEntry 
 
+	/**
+	*  The class the map will use for its key-value entries,
+	*  when it counts the comparisions.
+	*  As a side-effect the  <tt>counter</tt> of the map increases
+	*  with one each time the <tt>compareTo</tt>-method is used.
+	*  Since an entry being searched for is always the one whose
+	*  <tt>compareTo</tt> is used, each comparision is counted once.
+	*/
+	static class CountedEntry<EK extends Comparable<? super EK>,EV>
+						extends TestMapEntry<EK,EV> {
+
+		private final LongAdder counter;
+
+		CountedEntry( EK key, EV value, LongAdder counter ) {
+			super( key, value );
+			this.counter = counter;
+		} //  constructor CountedEntry
+
+		public int compareTo( TestMapEntry<EK,EV> e ) {
+			counter.increment();
+			return key.compareTo( e.key );
+		}
+	} //  class CountedEntry 
+
+	/**
+	*  A key for <tt>lookup</tt> in a map with <tt>String</tt> keys,
+	*  that is a part of some text instead of a <tt>String</tt>.
+	*  It compares as the <tt>String</tt> of its chars would,
+	*  so one probe can be set to word after word of a text
+	*  and looked up without creating any objects.
+	*  A probe is only compared to the entries of the map,
+	*  it is never stored in the map. It counts its comparisions
+	*  if the map it is looked up in does.
+	*/
+	public static class CharsProbe<EV> extends TestMapEntry<String,EV> {
+
+		private CharSequence text;
+		private int          start, end;
+		private LongAdder    counter;   // set by lookup, or null
+
+		public CharsProbe() {
+			super( null, null );
+		} //  constructor CharsProbe
+
+		/**
+		* Let the probe be the chars of <tt>text</tt> from
+		* <tt>start</tt> up to <tt>end</tt>.
+		* @return this probe.
+		*/
+		public CharsProbe<EV> set( CharSequence text, int start, int end ) {
+			this.text  = text;
+			this.start = start;
+			this.end   = end;
+			return this;
+		} // set
+
+		public String getKey() {
+			return toString();
+		} // getKey
+
+		public int hashCode() {
+			int h = 0;
+			for ( int i = start; i < end; i++ )
+				h = 31 * h + text.charAt(i);
+			return h;
+		} // hashCode
+
+		// the same result as String.compareTo
+		public int compareTo( TestMapEntry<String,EV> e ) {
+			if ( counter != null )
+				counter.increment();
+			String k = e.key;
+			int len = end - start, lim = Math.min( len, k.length() );
+			for ( int i = 0; i < lim; i++ ) {
+				char c1 = text.charAt( start + i ), c2 = k.charAt( i );
+				if ( c1 != c2 )
+					return c1 - c2;
+			}
+			return len - k.length();
+		} // compareTo
+
+		public String toString() {
+			return text.subSequence( start, end ).toString();
+		} // toString
+	} //  class CharsProbe 
+
 	/**
 		* An iterator that travers throw the elements
 		* in the same order as the given containers iterator.
@@ -94,13 +214,62 @@ public class TestMapWithCounter<K extends Comparable<? super K>,V>
 
 	/** 
 		* Returns a set view of the mappings contained in this map.
+		* The view is backed by the container, without any copy,
+		* so it iterates in the order of the container and shows
+		* every change of the map.
 		*
 		* @ returns a a set view of the mappings contained in this map.
 		*/
 	public Set<Map.Entry<K,V>> entrySet() {
-		return new TreeSet<Map.Entry<K,V>>(container);
+		if ( entrySet == null )
+			entrySet = new EntrySet();
+		return entrySet;
 	}
 
+	/**
+		* The entries of the container as a set. The size is that of
+		* the container and contains and remove search for the key
+		* in it, instead of going through all the entries as in
+		* <tt>AbstractSet</tt>.
+		*/
+	private class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+
+		// The entries are Map.Entry's, and an Iterator only gives
+		// them out, so the iterator of the container is used as it is.
+		@SuppressWarnings("unchecked")
+		public Iterator<Map.Entry<K,V>> iterator() {
+			return (Iterator<Map.Entry<K,V>>) (Iterator<?>) container.iterator();
+		} // iterator
+
+		public int size() {
+			return container.size();
+		} // size
+
+		public void clear() {
+			container.clear();
+		} // clear
+
+		public boolean contains( Object o ) {
+			return find( o ) != null;
+		} // contains
+
+		public boolean remove( Object o ) {
+			TestMapEntry<K,V> bme = find( o );
+			return bme != null && container.remove( bme );
+		} // remove
+
+		// The entry of the map with the key and value of o, if any
+		@SuppressWarnings("unchecked")
+		private TestMapEntry<K,V> find( Object o ) {
+			if ( !(o instanceof Map.Entry) )
+				return null;
+			Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+			TestMapEntry<K,V> bme = container.get( newEntry( (K) e.getKey(), null ));
+			return bme != null && Objects.equals( bme.value, e.getValue() )
+				? bme : null;
+		} // find
+	} //  class EntrySet
+
 	/**
 		*  Returns the value to which is mapped by the specified key.
 		*
@@ -108,7 +277,23 @@ public class TestMapWithCounter<K extends Comparable<? super K>,V>
 		* @return the value that corresponds to the key.
 		*/
 	public V get(Object  key) {
-		TestMapEntry<K,V> bme = container.get( new TestMapEntry<K,V>( (K) key, null ));
+		TestMapEntry<K,V> bme = container.get( newEntry( (K) key, null ));
+		return  bme == null ? null  : bme.value;
+	} 
+
+	/**
+		*  Returns the value that is mapped by the key of <tt>probe</tt>,
+		*  without creating anything, e.g. by a <tt>CharsProbe</tt>.
+		*
+		* @param probe an entry with the key to some value.
+		* @return the value that corresponds to the key.
+		*/
+	public V lookup( TestMapEntry<K,V> probe ) {
+		if ( probe instanceof CharsProbe )
+			((CharsProbe<?>) probe).counter = counter;
+		if ( operations != null )
+			operations.increment();
+		TestMapEntry<K,V> bme = container.get( probe );
 		return  bme == null ? null  : bme.value;
 	} 
 
@@ -120,7 +305,7 @@ public class TestMapWithCounter<K extends Comparable<? super K>,V>
 		*/
 	public boolean containsKey( K key) {
 		return container.contains( 
-			new TestMapEntry<K,V>( key, null ));
+			newEntry( key, null ));
 	} 
 
 	/**
@@ -131,17 +316,110 @@ public class TestMapWithCounter<K extends Comparable<? super K>,V>
 		* @param value  value to be associated with the specified key.
 		*/
 	public V put( K key, V value ) {
-		TestMapEntry<K,V> bme = new TestMapEntry<K,V>(key, value );
-		TestMapEntry<K,V> old = container.get(bme);
+		TestMapEntry<K,V> bme = newEntry( key, value );
+		TestMapEntry<K,V> old = container.addIfAbsent(bme);
 
-		if ( old == null ) {
-			container.add( bme );
+		if ( old == null )
 			return null;
-		}
 		else
 			return old.setValue( value );
 	} 
 
+	/*
+	 * The methods below, as put, find the entry of the key or add a
+	 * new one by one addIfAbsent, instead of the get and put of the
+	 * default methods of Map. A value is always computed before its
+	 * entry is added, so no other thread sees an entry without its
+	 * value. computeIfAbsent and compute first look the key up, as
+	 * their functions must see its value. On a concurrent container
+	 * they are not atomic: two threads may both apply the function,
+	 * and then computeIfAbsent returns the value that was added
+	 * first, while compute keeps the value stored last.
+	 */
+
+	/**
+		* Associates the value with the key, unless the key has
+		* a value that is not <tt>null</tt>.
+		* @return the value the key had, or <tt>null</tt>.
+		*/
+	public V putIfAbsent( K key, V value ) {
+		TestMapEntry<K,V> old = container.addIfAbsent(
+			newEntry( key, value ));
+		if ( old == null )
+			return null;
+		V oldValue = old.value;
+		if ( oldValue == null )
+			old.value = value;
+		return oldValue;
+	} 
+
+	/**
+		* Returns the value of the key, and if it has none
+		* first associates it with the value computed from the key.
+		* If that is <tt>null</tt> the key gets no value.
+		*/
+	public V computeIfAbsent( K key,
+							  Function<? super K, ? extends V> mappingFunction ) {
+		Objects.requireNonNull( mappingFunction );
+		V value = get( key );
+		if ( value != null )
+			return value;
+		value = mappingFunction.apply( key );
+		if ( value == null )
+			return null;
+		V oldValue = putIfAbsent( key, value );
+		return oldValue == null ? value : oldValue;
+	} 
+
+	/**
+		* Associates the key with the value computed from the key
+		* and its value, or <tt>null</tt> if it has none. If the
+		* computed value is <tt>null</tt> the key is removed.
+		*/
+	public V compute( K key,
+					  BiFunction<? super K, ? super V, ? extends V> remappingFunction ) {
+		Objects.requireNonNull( remappingFunction );
+		TestMapEntry<K,V> entry = container.get( newEntry( key, null ));
+		V value = remappingFunction.apply( key,
+			entry == null ? null : entry.value );
+		if ( value == null ) {
+			if ( entry != null )
+				container.remove( entry );
+		}
+		else if ( entry != null )
+			entry.value = value;
+		else {
+			TestMapEntry<K,V> old = container.addIfAbsent(
+				newEntry( key, value ));
+			if ( old != null )
+				old.value = value;
+		}
+		return value;
+	} 
+
+	/**
+		* Associates the key with <tt>value</tt> if it has no value,
+		* and otherwise with the value computed from its value and
+		* <tt>value</tt>. If the computed value is <tt>null</tt> the
+		* key is removed.
+		*/
+	public V merge( K key, V value,
+					BiFunction<? super V, ? super V, ? extends V> remappingFunction ) {
+		Objects.requireNonNull( value );
+		Objects.requireNonNull( remappingFunction );
+		TestMapEntry<K,V> old = container.addIfAbsent(
+			newEntry( key, value ));
+		if ( old == null )
+			return value;
+		V newValue = old.value == null
+			? value : remappingFunction.apply( old.value, value );
+		if ( newValue == null )
+			container.remove( old );
+		else
+			old.value = newValue;
+		return newValue;
+	} 
+
 	/**
 		*  Removes all mappings from this map
 		*/
@@ -157,7 +435,7 @@ public class TestMapWithCounter<K extends Comparable<? super K>,V>
 		*
 		*/
 	public V remove(K key) {
-		TestMapEntry<K,V> bme = container.get( new TestMapEntry<K,V>( key, null ));
+		TestMapEntry<K,V> bme = container.get( newEntry( key, null ));
 		if ( bme != null ) {
 			container.remove(bme);
 			return bme.value;
@@ -170,15 +448,34 @@ public class TestMapWithCounter<K extends Comparable<? super K>,V>
 		* Set this maps counter to 0.
 		*/ 
 	public void resetCounter() {
-		TestMapEntry.counter = 0;
+		if ( counter != null ) {
+			counter.reset();
+			operations.reset();
+		}
 	}  // counter
 
 	/**
-		* Get the value of the counter.
+		* Get the value of the counter, the number of comparisions
+		* since it was reset, or 0 if the map does not count them.
 		*/ 
-	public int getCounter() {
-		return TestMapEntry.counter;
+	public long getCounter() {
+		return counter == null ? 0 : counter.sum();
 	} // getCounter
+
+	/**
+		* Get the number of operations on the map since the counter
+		* was reset, or 0 if the map does not count.
+		*/ 
+	public long getOperations() {
+		return operations == null ? 0 : operations.sum();
+	} // getOperations
+
+	/**
+		* Tells if the map counts its comparisions and operations.
+		*/ 
+	public boolean isCounting() {
+		return counter != null;
+	} // isCounting
      
     
 }  //  class TestMapWithCounter
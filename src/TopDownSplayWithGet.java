@@ -0,0 +1,285 @@
+import java.util.*;
+
+/**
+ *  A splay tree ordered by the method compareTo for the elements,
+ *  that splays top-down as Sleator and Tarjan describe it.
+ *  The path to the searched element is split into a left tree of
+ *  the smaller entries and a right tree of the greater entries on
+ *  the way down, and they are joined below the found entry at the
+ *  end. So an entry only needs the references left and right,
+ *  no parent, and a rotation is two writes with no elements swapped.
+ *
+ *  <tt>get</tt>, <tt>add</tt> and <tt>remove</tt> all splay, and after
+ *  them the element searched for, or the last entry on its path,
+ *  is the root. Since a <tt>get</tt> changes the tree, the iterator
+ *  throws <tt>ConcurrentModificationException</tt> also if
+ *  <tt>get</tt> is used while iterating, as the access-ordered
+ *  <tt>LinkedHashMap</tt> does.
+ *  Two elements for which compareTo gives 0 are not allowed.
+ */
+public class TopDownSplayWithGet<E extends Comparable<? super E>>
+						extends AbstractCollection<E>
+						implements CollectionWithGet<E> {
+
+	private Node<E> root;
+	private int     size;
+	private int     modCount;
+
+	// the left and right trees in splay hang on this one
+	private final Node<E> header = new Node<E>( null );
+	// the last comparison in splay, 0 if the root is equal
+	private int lastComp;
+
+	// ========== ========== ========== ==========
+	private static final class Node<E> {
+		E       element;
+		Node<E> left, right;
+
+		Node( E element ) {
+			this.element = element;
+		} // constructor Node
+	} // class Node
+	// ========== ========== ========== ==========
+
+	/**
+	*  The constructor creates the empty tree
+	*/
+	public TopDownSplayWithGet() {
+		super();
+	}  // constructor TopDownSplayWithGet
+	// ========== ========== ========== ==========
+
+	public int size() {
+		return size;
+	}  // size
+
+	public void clear() {
+		root = null;
+		size = 0;
+		modCount++;
+	}  // clear
+	// ========== ========== ========== ==========
+
+	/* Splay e in the tree t and return the new root, that is the
+	   entry equal to e or the last entry on the path to it.
+	   Going left, zig-zig, i.e. e < y < t:
+	              t              y
+	             / \            / \
+	            y   C   -->    A   t      and y is linked as the
+	           / \                / \     leftmost of the right tree,
+	          A   B              B   C    the search goes on in A
+	   In a zig only t is linked to the right tree. Going right is the
+	   mirror. Each entry is compared to e only once.
+	*/
+	private Node<E> splay( E e, Node<E> t ) {
+		Node<E> l = header, r = header;
+		header.left = header.right = null;
+		int comp = e.compareTo( t.element );
+		while ( comp != 0 ) {
+			if ( comp < 0 ) {
+				if ( t.left == null )
+					break;
+				comp = e.compareTo( t.left.element );
+				if ( comp < 0 ) {             // zig-zig, rotate right
+					Node<E> y = t.left;
+					t.left  = y.right;
+					y.right = t;
+					t = y;
+					if ( t.left == null )
+						break;
+				}
+				r.left = t;                   // link right
+				r = t;
+				t = t.left;
+				if ( comp < 0 )
+					comp = e.compareTo( t.element );
+			}
+			else {
+				if ( t.right == null )
+					break;
+				comp = e.compareTo( t.right.element );
+				if ( comp > 0 ) {             // zag-zag, rotate left
+					Node<E> y = t.right;
+					t.right = y.left;
+					y.left  = t;
+					t = y;
+					if ( t.right == null )
+						break;
+				}
+				l.right = t;                  // link left
+				l = t;
+				t = t.right;
+				if ( comp > 0 )
+					comp = e.compareTo( t.element );
+			}
+		}
+		l.right = t.left;                     // assemble
+		r.left  = t.right;
+		t.left  = header.right;
+		t.right = header.left;
+		header.left = header.right = null;
+		lastComp = comp;
+		modCount++;
+		return t;
+	}  // splay
+	// ========== ========== ========== ==========
+	/**
+	*  Find the first occurence of an element
+	*  in the collection that is equal to the argument
+	*  <tt>e</tt> with respect to its natural order.
+	*  I.e. <tt>e.compateTo(element)</tt> is 0.
+	*  The tree is splayed at <tt>e</tt>.
+	*
+	*  @param e The dummy element to compare to.
+	*  @return  An element  <tt>e'</tt> in the collection
+	*           satisfying <tt>e.compareTo(e') == 0</tt>.
+	*           If no element is found, <tt>null</tt> is returned
+	*/
+	public E get( E e ) {
+		if ( root == null )
+			return null;
+		root = splay( e, root );
+		return lastComp == 0 ? root.element : null;
+	}  // get
+
+	public boolean contains( E e ) {
+		return get( e ) != null;
+	}  // contains
+
+	@SuppressWarnings("unchecked")
+	public boolean contains( Object o ) {
+		return contains( (E) o );
+	}  // contains
+	// ========== ========== ========== ==========
+	/**
+	* Add the element as the new root, unless an equal element
+	* is in the tree. The tree is splayed at the element, and
+	* the old root goes to the left or the right of the new one.
+	* @param elem the element to be included
+	* @return true if the element was added.
+	*/
+	public boolean add( E elem ) {
+		return addIfAbsent( elem ) == null;
+	} // add
+
+	/**
+	* Add the element as <tt>add</tt> does. The splay that makes
+	* room for the element at the root also finds an equal element.
+	* @param elem the element to be included
+	* @return the equal element in the tree, or <tt>null</tt> if
+	*         <tt>elem</tt> was added.
+	*/
+	public E addIfAbsent( E elem ) {
+		if ( elem == null )
+			throw new NullPointerException();
+		Node<E> n = new Node<E>( elem );
+		if ( root != null ) {
+			root = splay( elem, root );
+			if ( lastComp == 0 )
+				return root.element;
+			else if ( lastComp < 0 ) {
+				n.left  = root.left;
+				n.right = root;
+				root.left = null;
+			}
+			else {
+				n.right = root.right;
+				n.left  = root;
+				root.right = null;
+			}
+		}
+		root = n;
+		size++;
+		modCount++;
+		return null;
+	} // addIfAbsent
+	// ========== ========== ========== ==========
+	/**
+	* Remove the element equal to the argument, if any.
+	* The tree is splayed at the element, and then its left
+	* subtree is splayed at its greatest element, which gets
+	* the right subtree as its right child.
+	*
+	* @param elem any element with the searched key
+	* @return true if an element has disapeared from the tree,
+	*         false otherwise
+	*/
+	public boolean remove( E elem ) {
+		if ( root == null )
+			return false;
+		root = splay( elem, root );
+		if ( lastComp != 0 )
+			return false;
+		if ( root.left == null )
+			root = root.right;
+		else {
+			Node<E> right = root.right;
+			// everything in the left subtree is smaller than elem
+			root = splay( elem, root.left );
+			root.right = right;
+		}
+		size--;
+		modCount++;
+		return true;
+	} // remove
+
+	@SuppressWarnings("unchecked")
+	public boolean remove( Object o ) {
+		return remove( (E) o );
+	}  // remove
+	// ========== ========== ========== ==========
+	/**
+	* Create an iterator for the elements in order.
+	* @return the created iterator.
+	*/
+	public Iterator<E> iterator() {
+		return new InorderIterator();
+	}  //  iterator
+
+	private class InorderIterator implements Iterator<E> {
+		private Stacks<Node<E>> nextOnTop = new LinkedStack<Node<E>>();
+		private E   lastNext = null;
+		private int expectedModCount = modCount;
+
+		private InorderIterator() {
+			for ( Node<E> p = root; p != null; p = p.left )
+				nextOnTop.push( p );
+		} // constructor InorderIterator
+
+		public boolean hasNext() {
+			return !nextOnTop.isEmpty();
+		} // hasNext
+
+		public E next() {
+			if ( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			if ( nextOnTop.isEmpty() )
+				throw new NoSuchElementException();
+			Node<E> x = nextOnTop.pop();
+			for ( Node<E> p = x.right; p != null; p = p.left )
+				nextOnTop.push( p );
+			return lastNext = x.element;
+		} // next
+
+		// The remove splays, so the way down to the next
+		// element is searched for again, without splaying.
+		public void remove() {
+			if ( lastNext == null )
+				throw new IllegalStateException();
+			if ( modCount != expectedModCount )
+				throw new ConcurrentModificationException();
+			TopDownSplayWithGet.this.remove( lastNext );
+			expectedModCount = modCount;
+			nextOnTop = new LinkedStack<Node<E>>();
+			for ( Node<E> p = root; p != null; )
+				if ( lastNext.compareTo( p.element ) < 0 ) {
+					nextOnTop.push( p );
+					p = p.left;
+				}
+				else
+					p = p.right;
+			lastNext = null;
+		} // remove
+	}  //  class InorderIterator
+	// ========== ========== ========== ==========
+}  //  class TopDownSplayWithGet
@@ -0,0 +1,79 @@
+import jdk.jfr.*;
+
+/**
+ *  The JDK Flight Recorder events of the trees, so that a slow
+ *  operation in a recording can be seen together with the
+ *  rotations, splays or long searches it made. Each event has
+ *  its duration and the length of the path it concerns.
+ *
+ *  An event object is made and begun before the work and only
+ *  filled in and committed after it if <tt>shouldCommit</tt>
+ *  says so. When the event is not recorded that is false, the
+ *  object does not escape and the JIT removes it, and a path
+ *  length that costs a walk to find is never computed.
+ */
+final class TreeEvents {
+
+	private TreeEvents() {
+	}  // constructor TreeEvents
+
+	/**
+	* A search is long if it goes more than twice as deep
+	* as in a perfectly balanced tree of the same size.
+	*/
+	static boolean isLong( int depth, int size ) {
+		return depth > 2 * (32 - Integer.numberOfLeadingZeros( size ));
+	}  // isLong
+
+	// ========== ========== ========== ==========
+	@Name("trees.Rotation")
+	@Label("Tree Rotation")
+	@Category({ "Collections", "Trees" })
+	@Description("A single or double rotation that restores the balance of an AVL tree")
+	static final class Rotation extends Event {
+		@Label("Tree")
+		String tree;
+
+		@Label("Kind")
+		String kind;
+
+		@Label("Depth")
+		@Description("The number of steps from the root to the rotated entry")
+		int depth;
+	}  // class Rotation
+
+	// ========== ========== ========== ==========
+	@Name("trees.Splay")
+	@Label("Splay")
+	@Category({ "Collections", "Trees" })
+	@Description("A splay or semi-splay of an entry towards the root")
+	static final class Splay extends Event {
+		@Label("Tree")
+		String tree;
+
+		@Label("Depth")
+		@Description("The depth of the entry before the splay")
+		int depth;
+
+		@Label("Rotations")
+		int rotations;
+	}  // class Splay
+
+	// ========== ========== ========== ==========
+	@Name("trees.LongFind")
+	@Label("Long Find")
+	@Category({ "Collections", "Trees" })
+	@Description("A search that went more than twice as deep as in a balanced tree")
+	static final class LongFind extends Event {
+		@Label("Tree")
+		String tree;
+
+		@Label("Depth")
+		@Description("The number of entries compared to")
+		int depth;
+
+		@Label("Size")
+		int size;
+	}  // class LongFind
+	// ========== ========== ========== ==========
+}  //  class TreeEvents